@@ -0,0 +1,26 @@
+package io.github.dimkich.integration.testing.h2;
+
+import io.github.dimkich.integration.testing.IntegrationTesting;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Enables integration testing with an in-process H2 database, without starting any container.
+ * <p>
+ * The application data source must point to an H2 database, for example {@code jdbc:h2:mem:test}.
+ * Table names are taken as H2 stores them, so {@code DATABASE_TO_LOWER=TRUE} is recommended
+ * for test suites shared with PostgreSQL.
+ */
+@Inherited
+@Target(TYPE)
+@Retention(RUNTIME)
+@IntegrationTesting
+@ImportAutoConfiguration(classes = H2DataStorageFactory.class)
+public @interface EnableTestH2 {
+}
@@ -0,0 +1,212 @@
+package io.github.dimkich.integration.testing.h2;
+
+import io.github.dimkich.integration.testing.dbunit.DeleteFromTableOperation;
+import io.github.dimkich.integration.testing.h2.dbunit.DisableReferentialIntegrityOperation;
+import io.github.dimkich.integration.testing.storage.sql.SQLDataStorage;
+import io.github.dimkich.integration.testing.storage.sql.snapshot.SqlSnapshot;
+import io.github.dimkich.integration.testing.storage.sql.snapshot.TableSnapshot;
+import lombok.Cleanup;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.ext.h2.H2DataTypeFactory;
+import org.dbunit.operation.CompositeOperation;
+import org.dbunit.operation.DatabaseOperation;
+
+import java.sql.Date;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * {@link SQLDataStorage} for an in-process H2 database.
+ * <p>
+ * Changes of restricted tables are rejected by {@link H2RestrictedTableTrigger} statement triggers,
+ * while the admin connection of this storage bypasses them. Referential integrity is disabled
+ * while tables are cleared and loaded, so the order of tables does not matter.
+ */
+@RequiredArgsConstructor
+public class H2DataStorage implements SQLDataStorage {
+    static final String ALLOWED_TABLES_TABLE = "INTEGRATION_TESTING_ALLOWED_TABLES";
+    private static final String TRIGGER_SUFFIX = "_TESTS_RESTRICTED";
+    private static final DatabaseOperation CLEAN_INSERT = new DisableReferentialIntegrityOperation(
+            new CompositeOperation(new DeleteFromTableOperation(), DatabaseOperation.INSERT));
+
+    @Getter
+    private final String name;
+    private final Connection connection;
+
+    private final Map<String, String> tableIdentities = new HashMap<>();
+    private final Map<String, List<String>> tableColumns = new HashMap<>();
+    private final Map<String, List<String>> primaryKeys = new HashMap<>();
+    private IDatabaseConnection dbUnitConnection;
+
+    @Override
+    public void executeSql(Collection<String> sql) throws Exception {
+        @Cleanup Statement statement = connection.createStatement();
+        for (String s : sql) {
+            if (!s.isBlank()) {
+                statement.execute(s);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getTablesData(Collection<String> tables, Map<String, Set<String>> excludedRows)
+            throws Exception {
+        List<TableSnapshot> snapshots = new ArrayList<>();
+        @Cleanup Statement statement = connection.createStatement();
+        for (String table : tables) {
+            snapshots.add(readTable(statement, table, excludedRows.get(table)));
+        }
+        return new SqlSnapshot(snapshots);
+    }
+
+    private TableSnapshot readTable(Statement statement, String table, Set<String> exclude) throws SQLException {
+        List<String> key = primaryKeys.get(table);
+        if (key == null) {
+            throw new RuntimeException(String.format("Table %s do not have a primary key", table));
+        }
+        String[] columns = tableColumns.getOrDefault(table, List.of()).stream()
+                .filter(c -> exclude == null || !exclude.contains(c))
+                .toArray(String[]::new);
+        List<String> columnList = Arrays.asList(columns);
+        int[] keyIndexes = key.stream().mapToInt(columnList::indexOf).toArray();
+        String select = columns.length == 0 ? "1" : String.join(", ", columnList.stream()
+                .map(c -> "\"" + c + "\"").toList());
+        TableSnapshot.Builder builder = TableSnapshot.builder(table, columns);
+        @Cleanup ResultSet resultSet = statement.executeQuery("SELECT " + select + " FROM \"" + table + "\"");
+        while (resultSet.next()) {
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = convertValue(resultSet.getObject(i + 1));
+            }
+            StringBuilder rowKey = new StringBuilder(table);
+            for (int keyIndex : keyIndexes) {
+                rowKey.append("_").append(keyIndex < 0 ? null : values[keyIndex]);
+            }
+            builder.addRow(rowKey.toString(), values);
+        }
+        return builder.build();
+    }
+
+    private Object convertValue(Object object) throws SQLException {
+        if (object instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        } else if (object instanceof Date date) {
+            return date.toLocalDate();
+        } else if (object instanceof Array array) {
+            return Arrays.asList((Object[]) array.getArray());
+        } else if (object instanceof Clob clob) {
+            return clob.getSubString(1, (int) clob.length());
+        }
+        return object;
+    }
+
+    @Override
+    public void loadDataset(IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        CLEAN_INSERT.execute(getDbUnitConnection(), dataSet);
+    }
+
+    @Override
+    public DatabaseConfig getDbunitConfig() throws Exception {
+        return getDbUnitConnection().getConfig();
+    }
+
+    private IDatabaseConnection getDbUnitConnection() throws DatabaseUnitException, SQLException {
+        if (dbUnitConnection == null) {
+            dbUnitConnection = new DatabaseConnection(connection, connection.getSchema());
+            dbUnitConnection.getConfig().setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY,
+                    new H2DataTypeFactory());
+            dbUnitConnection.getConfig().setProperty(DatabaseConfig.FEATURE_ALLOW_EMPTY_FIELDS, true);
+        }
+        return dbUnitConnection;
+    }
+
+    @Override
+    public Set<String> getTables() throws SQLException {
+        String schema = connection.getSchema();
+        DatabaseMetaData metaData = connection.getMetaData();
+        Set<String> tables = new LinkedHashSet<>();
+        @Cleanup ResultSet rs = metaData.getTables(null, schema, null, new String[]{"TABLE", "BASE TABLE"});
+        while (rs.next()) {
+            String tableName = rs.getString("TABLE_NAME");
+            if (!tableName.equalsIgnoreCase(ALLOWED_TABLES_TABLE)) {
+                tables.add(tableName);
+            }
+        }
+        tableColumns.clear();
+        primaryKeys.clear();
+        tableIdentities.clear();
+        @Cleanup ResultSet columns = metaData.getColumns(null, schema, null, null);
+        while (columns.next()) {
+            String table = columns.getString("TABLE_NAME");
+            if (tables.contains(table)) {
+                tableColumns.computeIfAbsent(table, t -> new ArrayList<>()).add(columns.getString("COLUMN_NAME"));
+                if ("YES".equals(columns.getString("IS_AUTOINCREMENT"))) {
+                    tableIdentities.put(table, columns.getString("COLUMN_NAME"));
+                }
+            }
+        }
+        for (String table : tables) {
+            @Cleanup ResultSet keys = metaData.getPrimaryKeys(null, schema, table);
+            while (keys.next()) {
+                primaryKeys.computeIfAbsent(table, t -> new ArrayList<>()).add(keys.getString("COLUMN_NAME"));
+            }
+        }
+        return tables;
+    }
+
+    @Override
+    public void initTablesRestriction(Collection<String> tables) throws SQLException {
+        @Cleanup Statement statement = connection.createStatement();
+        statement.execute("CREATE TABLE IF NOT EXISTS " + ALLOWED_TABLES_TABLE
+                + " (name VARCHAR NOT NULL PRIMARY KEY)");
+        statement.execute("GRANT SELECT ON " + ALLOWED_TABLES_TABLE + " TO PUBLIC");
+        for (String table : tables) {
+            statement.execute("CREATE TRIGGER IF NOT EXISTS \"" + table + TRIGGER_SUFFIX
+                    + "\" BEFORE INSERT, UPDATE, DELETE ON \"" + table + "\" FOR EACH STATEMENT CALL '"
+                    + H2RestrictedTableTrigger.class.getName() + "'");
+        }
+    }
+
+    @Override
+    public String getAllowTableSql(String table) {
+        return "insert into " + ALLOWED_TABLES_TABLE + " values ('" + table + "')";
+    }
+
+    @Override
+    public String getRestrictTableSql(String table) {
+        return "delete from " + ALLOWED_TABLES_TABLE + " where name ='" + table + "'";
+    }
+
+    @Override
+    public String getClearSql(Collection<String> tables) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("SET REFERENTIAL_INTEGRITY FALSE;\n");
+        for (String table : tables) {
+            builder.append("DELETE FROM \"").append(table).append("\";\n");
+        }
+        builder.append("SET REFERENTIAL_INTEGRITY TRUE");
+        return builder.toString();
+    }
+
+    @Override
+    public String getRestartIdentitySql(Collection<String> tables) {
+        StringBuilder builder = new StringBuilder();
+        for (String table : tables) {
+            String column = tableIdentities.get(table);
+            if (column != null) {
+                if (!builder.isEmpty()) {
+                    builder.append(";\n");
+                }
+                builder.append("ALTER TABLE \"").append(table).append("\" ALTER COLUMN \"").append(column)
+                        .append("\" RESTART");
+            }
+        }
+        return builder.toString();
+    }
+}
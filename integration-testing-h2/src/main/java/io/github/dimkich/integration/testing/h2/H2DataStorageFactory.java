@@ -0,0 +1,58 @@
+package io.github.dimkich.integration.testing.h2;
+
+import io.github.dimkich.integration.testing.storage.sql.SQLDataStorage;
+import io.github.dimkich.integration.testing.storage.sql.SQLDataStorageFactory;
+import io.github.dimkich.integration.testing.util.StringUtils;
+import jakarta.annotation.Nullable;
+import lombok.Cleanup;
+import lombok.RequiredArgsConstructor;
+import org.h2.Driver;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Creates {@link H2DataStorage} for H2 data sources.
+ * <p>
+ * Admin connections are opened with a dedicated H2 admin user, which is created on the first connection
+ * with the credentials of the application data source. So the application user must have admin rights,
+ * as the default {@code sa} user does. The password of the admin user is generated randomly by every factory
+ * and set again before each admin connection is opened, so it is never known outside the test process.
+ */
+@RequiredArgsConstructor
+public class H2DataStorageFactory implements SQLDataStorageFactory {
+    static final String ADMIN_USERNAME = "INTEGRATION_TESTING_ADMIN";
+    private final String adminPassword = StringUtils.randomString(32);
+
+    private final ObjectProvider<DataSourceProperties> dataSourceProperties;
+
+    @Override
+    public String getDriverClassName() {
+        return Driver.class.getName();
+    }
+
+    @Override
+    public Connection createConnection(String url, @Nullable DataSourceProperties suggestedProperties) throws SQLException {
+        DataSourceProperties properties = suggestedProperties != null ? suggestedProperties
+                : dataSourceProperties.getIfAvailable();
+        String username = properties == null ? "sa" : properties.determineUsername();
+        String password = properties == null ? "" : properties.determinePassword();
+        if (ADMIN_USERNAME.equalsIgnoreCase(username)) {
+            return DriverManager.getConnection(url, username, password);
+        }
+        @Cleanup Connection connection = DriverManager.getConnection(url, username, password);
+        @Cleanup Statement statement = connection.createStatement();
+        statement.execute("CREATE USER IF NOT EXISTS " + ADMIN_USERNAME + " PASSWORD '" + adminPassword + "' ADMIN");
+        statement.execute("ALTER USER " + ADMIN_USERNAME + " SET PASSWORD '" + adminPassword + "'");
+        return DriverManager.getConnection(url, ADMIN_USERNAME, adminPassword);
+    }
+
+    @Override
+    public SQLDataStorage createStorage(String name, Connection connection, String username) {
+        return new H2DataStorage(name, connection);
+    }
+}
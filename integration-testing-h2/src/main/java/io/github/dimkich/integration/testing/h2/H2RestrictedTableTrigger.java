@@ -0,0 +1,39 @@
+package io.github.dimkich.integration.testing.h2;
+
+import lombok.Cleanup;
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * H2 statement trigger, which rejects changes of tables not declared in tests "init" section.
+ * <p>
+ * Changes made by the admin user of {@link H2DataStorage} are always allowed.
+ */
+public class H2RestrictedTableTrigger implements Trigger {
+    private String tableName;
+
+    @Override
+    public void init(Connection conn, String schemaName, String triggerName, String tableName, boolean before,
+                     int type) {
+        this.tableName = tableName;
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (H2DataStorageFactory.ADMIN_USERNAME.equalsIgnoreCase(conn.getMetaData().getUserName())) {
+            return;
+        }
+        @Cleanup PreparedStatement statement = conn.prepareStatement(
+                "SELECT 1 FROM " + H2DataStorage.ALLOWED_TABLES_TABLE + " WHERE UPPER(name) = UPPER(?)");
+        statement.setString(1, tableName);
+        @Cleanup ResultSet resultSet = statement.executeQuery();
+        if (!resultSet.next()) {
+            throw new SQLException(String.format("Changes to table \"%s\" restricted, since it was not declared "
+                    + "in tests \"init\" section.", tableName));
+        }
+    }
+}
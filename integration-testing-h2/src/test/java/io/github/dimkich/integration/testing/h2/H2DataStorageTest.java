@@ -0,0 +1,134 @@
+package io.github.dimkich.integration.testing.h2;
+
+import io.github.dimkich.integration.testing.storage.sql.SQLDataStorage;
+import lombok.Cleanup;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class H2DataStorageTest {
+    private static final String URL = "jdbc:h2:mem:h2_data_storage_test;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+    private static Connection appConnection;
+    private static Connection adminConnection;
+    private static SQLDataStorage storage;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        appConnection = DriverManager.getConnection(URL, "sa", "");
+        execute(appConnection, "create table allowed (id int auto_increment primary key, name varchar(100))");
+        execute(appConnection, "create table restricted (id int primary key, name varchar(100))");
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(URL);
+        properties.setUsername("sa");
+        properties.setPassword("");
+        H2DataStorageFactory factory = new H2DataStorageFactory(null);
+        adminConnection = factory.createConnection(URL, properties);
+        storage = factory.createStorage("h2", adminConnection, "sa");
+        Set<String> tables = storage.getTables();
+        storage.initTablesRestriction(tables);
+        storage.executeSql(List.of(storage.getAllowTableSql("allowed")));
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        execute(appConnection, "drop all objects");
+        appConnection.close();
+        adminConnection.close();
+    }
+
+    @BeforeEach
+    void clear() throws Exception {
+        storage.executeSql(List.of(storage.getClearSql(List.of("allowed", "restricted")),
+                storage.getRestartIdentitySql(List.of("allowed", "restricted"))));
+    }
+
+    @Test
+    void getTables() throws Exception {
+        assertEquals(Set.of("allowed", "restricted"), storage.getTables());
+    }
+
+    @Test
+    void restrictChangesOfNotAllowedTables() throws Exception {
+        execute(appConnection, "insert into allowed (name) values ('a')");
+        SQLException e = assertThrows(SQLException.class,
+                () -> execute(appConnection, "insert into restricted values (1, 'a')"));
+        assertTrue(e.getMessage().contains("Changes to table \"restricted\" restricted"), e.getMessage());
+
+        execute(adminConnection, "insert into restricted values (1, 'a')");
+        assertThrows(SQLException.class, () -> execute(appConnection, "delete from restricted"));
+
+        storage.executeSql(List.of(storage.getAllowTableSql("restricted")));
+        try {
+            execute(appConnection, "delete from restricted");
+        } finally {
+            storage.executeSql(List.of(storage.getRestrictTableSql("restricted")));
+        }
+        assertThrows(SQLException.class, () -> execute(appConnection, "insert into restricted values (2, 'b')"));
+    }
+
+    @Test
+    void clearAndRestartIdentity() throws Exception {
+        execute(appConnection, "insert into allowed (name) values ('a'), ('b')");
+        execute(adminConnection, "insert into restricted values (1, 'a')");
+
+        storage.executeSql(List.of(storage.getClearSql(List.of("allowed", "restricted")),
+                storage.getRestartIdentitySql(List.of("allowed", "restricted"))));
+        execute(appConnection, "insert into allowed (name) values ('c')");
+
+        assertEquals(Map.of("allowed_1", Map.of("id", 1, "name", "c")),
+                storage.getTablesData(List.of("allowed", "restricted"), Map.of()));
+    }
+
+    @Test
+    void getTablesData() throws Exception {
+        execute(appConnection, "insert into allowed (name) values ('a'), (null)");
+        execute(adminConnection, "insert into restricted values (5, 'b')");
+
+        Map<String, Object> data = storage.getTablesData(List.of("allowed", "restricted"),
+                Map.of("allowed", Set.of("name")));
+
+        assertEquals(Map.of("allowed_1", Map.of("id", 1), "allowed_2", Map.of("id", 2),
+                "restricted_5", Map.of("id", 5, "name", "b")), data);
+        assertEquals(Map.of("restricted_5", Map.of("id", 5, "name", "b")),
+                storage.getTablesDataPerTable(List.of("allowed", "restricted"), Map.of()).get("restricted"));
+    }
+
+    @Test
+    void loadDataset() throws Exception {
+        DefaultTable table = new DefaultTable("restricted", new Column[]{
+                new Column("id", DataType.UNKNOWN), new Column("name", DataType.UNKNOWN)});
+        table.addRow(new Object[]{"1", "a"});
+        table.addRow(new Object[]{"2", null});
+        execute(adminConnection, "insert into restricted values (3, 'c')");
+
+        storage.loadDataset(new DefaultDataSet(table));
+
+        Map<String, Object> row2 = new HashMap<>();
+        row2.put("id", 2);
+        row2.put("name", null);
+        assertEquals(Map.of("restricted_1", Map.of("id", 1, "name", "a"), "restricted_2", row2),
+                storage.getTablesData(List.of("restricted"), Map.of()));
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        @Cleanup Statement statement = connection.createStatement();
+        statement.execute(sql);
+    }
+}
@@ -16,6 +16,6 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 @Retention(RUNTIME)
 @IntegrationTesting
 @TestPropertySource("classpath:postgresql.properties")
-@ImportAutoConfiguration(classes = PostgresqlDataStorageFactory.class)
+@ImportAutoConfiguration(classes = {PostgresqlDataStorageFactory.class, PostgresqlSchemaCache.class})
 public @interface EnableTestPostgreSQL {
 }
@@ -1,13 +1,19 @@
 package io.github.dimkich.integration.testing.postgresql;
 
 import io.github.dimkich.integration.testing.dbunit.DeleteFromTableOperation;
+import io.github.dimkich.integration.testing.postgresql.dbunit.CopyInsertOperation;
 import io.github.dimkich.integration.testing.postgresql.dbunit.CustomPostgresqlDataTypeFactory;
 import io.github.dimkich.integration.testing.postgresql.dbunit.DisableTriggersOperation;
+import io.github.dimkich.integration.testing.storage.sql.SQLConnectionPool;
 import io.github.dimkich.integration.testing.storage.sql.SQLDataStorage;
+import io.github.dimkich.integration.testing.storage.sql.snapshot.SqlSnapshot;
+import io.github.dimkich.integration.testing.storage.sql.snapshot.TableSnapshot;
 import io.github.dimkich.integration.testing.util.StringUtils;
 import lombok.Cleanup;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
 import org.dbunit.DatabaseUnitException;
 import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.DatabaseConnection;
@@ -21,69 +27,308 @@ import org.postgresql.util.PGobject;
 import java.sql.Date;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
+@Slf4j
 @RequiredArgsConstructor
 public class PostgresqlDataStorage implements SQLDataStorage {
     private static final DatabaseOperation CLEAN_INSERT = new DisableTriggersOperation(
             new CompositeOperation(new DeleteFromTableOperation(), DatabaseOperation.INSERT));
+    private static final DatabaseOperation CLEAN_COPY = new DisableTriggersOperation(
+            new CompositeOperation(new DeleteFromTableOperation(), new CopyInsertOperation()));
 
     @Getter
     private final String name;
-    private final Connection connection;
+    private final SQLConnectionPool connectionPool;
     private final String adminUsername;
+    private final int readConnectionCount;
+    private final boolean truncate;
 
     private final String allowedTablesTable = "allowed_tables_" + StringUtils.randomString(16).toLowerCase();
+    private final String checkpointPrefix = "checkpoint_" + StringUtils.randomString(16).toLowerCase() + "_";
     private final Map<String, String> tableSequences = new HashMap<>();
+    private final Map<String, String> checkpoints = new HashMap<>();
+    private final Map<String, Map<String, String>> stateCheckpoints = new HashMap<>();
+    private final Map<String, Map<String, String>> stateSequences = new HashMap<>();
+    private final Map<String, String> insertableColumns = new HashMap<>();
+    private int checkpointCounter;
+    private final String changeLogTable = "change_log_" + StringUtils.randomString(16).toLowerCase();
 
     private Map<String, List<String>> primaryKeys;
+    private Map<String, Set<String>> referencingTables;
     private IDatabaseConnection dbUnitConnection;
+    private final Map<String, List<String>> tableColumns = new ConcurrentHashMap<>();
+    private final Map<String, TableProjection> projections = new ConcurrentHashMap<>();
+    private ExecutorService readExecutor;
+    private boolean consistentRead;
 
     @Override
     public void executeSql(Collection<String> sql) throws Exception {
-        @Cleanup Statement statement = connection.createStatement();
+        @Cleanup Statement statement = getConnection().createStatement();
         statement.execute(String.join(";\n", sql));
     }
 
+    private Connection getConnection() throws SQLException {
+        return connectionPool.getConnection();
+    }
+
     @Override
     public Map<String, Object> getTablesData(Collection<String> tables, Map<String, Set<String>> excludedRows) throws Exception {
-        Map<String, Object> currentValue = new LinkedHashMap<>();
-        @Cleanup Statement statement = connection.createStatement();
+        if (readConnectionCount > 1 && tables.size() > 1) {
+            return getTablesDataConcurrently(tables, excludedRows);
+        }
+        List<TableSnapshot> snapshots = new ArrayList<>();
+        @Cleanup Statement statement = getConnection().createStatement();
         for (String table : tables) {
-            @Cleanup ResultSet resultSet = statement.executeQuery("SELECT * FROM " + table);
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            Set<String> exclude = excludedRows.get(table);
-            while (resultSet.next()) {
-                Map<String, Object> record = new LinkedHashMap<>();
-                for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                    if (exclude != null && exclude.contains(metaData.getColumnName(i))) {
-                        continue;
-                    }
-                    Object object = resultSet.getObject(i);
-                    if (object instanceof Timestamp timestamp) {
-                        object = timestamp.toLocalDateTime();
-                    } else if (object instanceof Date date) {
-                        object = date.toLocalDate();
-                    } else if (object instanceof PgArray pgArray) {
-                        object = pgArray.toString();
-                    } else if (object instanceof PGobject pgObject) {
-                        object = pgObject.toString();
+            snapshots.add(readTable(statement, table, getProjection(table, excludedRows.get(table))));
+        }
+        return new SqlSnapshot(snapshots);
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getTablesDataPerTable(Collection<String> tables,
+                                                                  Map<String, Set<String>> excludedRows) throws Exception {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        if (!tables.isEmpty()) {
+            SqlSnapshot snapshot = (SqlSnapshot) getTablesData(tables, excludedRows);
+            for (TableSnapshot table : snapshot.getTables()) {
+                result.put(table.getTable(), new SqlSnapshot(List.of(table)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> T readConsistently(Callable<T> reads) throws Exception {
+        if (consistentRead) {
+            return reads.call();
+        }
+        Connection connection = getConnection();
+        int isolation = connection.getTransactionIsolation();
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        connection.setAutoCommit(false);
+        consistentRead = true;
+        try {
+            return reads.call();
+        } finally {
+            consistentRead = false;
+            try {
+                connection.rollback();
+            } finally {
+                connection.setAutoCommit(true);
+                connection.setTransactionIsolation(isolation);
+            }
+        }
+    }
+
+    private Map<String, Object> getTablesDataConcurrently(Collection<String> tables,
+                                                          Map<String, Set<String>> excludedRows) throws Exception {
+        Map<String, TableProjection> tableProjections = new HashMap<>();
+        for (String table : tables) {
+            tableProjections.put(table, getProjection(table, excludedRows.get(table)));
+        }
+        List<Connection> connections = borrowReadConnections();
+        Queue<String> queue = new ConcurrentLinkedQueue<>(tables);
+        Map<String, TableSnapshot> tablesData = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+        Exception error = null;
+        try {
+            // inside a consistent read, the readers join the transaction of the admin connection
+            String snapshot = exportSnapshot(consistentRead ? getConnection() : connections.get(0));
+            for (int i = 0; i < connections.size(); i++) {
+                Connection readConnection = connections.get(i);
+                boolean importSnapshot = consistentRead || i > 0;
+                futures.add(readExecutor.submit(() -> {
+                    try {
+                        @Cleanup Statement statement = readConnection.createStatement();
+                        if (importSnapshot) {
+                            statement.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+                        }
+                        String table;
+                        while ((table = queue.poll()) != null) {
+                            tablesData.put(table, readTable(statement, table, tableProjections.get(table)));
+                        }
+                        return null;
+                    } catch (Exception e) {
+                        queue.clear();
+                        throw e;
                     }
-                    record.put(metaData.getColumnName(i), object);
-                }
-                StringBuilder key = new StringBuilder(table);
-                for (String keyColumn : getPrimaryKey(table)) {
-                    key.append("_").append(record.get(keyColumn));
+                }));
+            }
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            error = awaitReaders(futures, queue, error);
+            connections.forEach(connectionPool::release);
+        }
+        if (error != null) {
+            throw error;
+        }
+        return new SqlSnapshot(tables.stream().map(tablesData::get).toList());
+    }
+
+    /**
+     * Waits for all reader tasks, so that their connections are released only when they are no longer used.
+     * After a failure, the remaining tables are not read.
+     *
+     * @return the first error, with errors of other readers suppressed, or {@code null} if all tables are read
+     */
+    private static Exception awaitReaders(List<Future<?>> futures, Queue<String> queue, Exception error) {
+        if (error != null) {
+            queue.clear();
+        }
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    queue.clear();
+                    error = addError(error, e);
+                } catch (ExecutionException e) {
+                    queue.clear();
+                    error = addError(error, e.getCause() instanceof Exception ex ? ex : e);
+                    break;
                 }
-                currentValue.put(key.toString(), record);
             }
         }
-        return currentValue;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return error;
+    }
+
+    private static Exception addError(Exception error, Exception e) {
+        if (error == null) {
+            return e;
+        }
+        if (error != e) {
+            error.addSuppressed(e);
+        }
+        return error;
+    }
+
+    private String exportSnapshot(Connection readConnection) throws SQLException {
+        @Cleanup Statement statement = readConnection.createStatement();
+        @Cleanup ResultSet resultSet = statement.executeQuery("SELECT pg_export_snapshot()");
+        resultSet.next();
+        return resultSet.getString(1);
+    }
+
+    private List<Connection> borrowReadConnections() throws SQLException {
+        if (readExecutor == null) {
+            readExecutor = Executors.newFixedThreadPool(readConnectionCount, r -> {
+                Thread thread = new Thread(r, name + "-reader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < readConnectionCount; i++) {
+                Connection readConnection = connectionPool.borrow();
+                connections.add(readConnection);
+                readConnection.setAutoCommit(false);
+                readConnection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                readConnection.setReadOnly(true);
+            }
+        } catch (SQLException e) {
+            connections.forEach(connectionPool::release);
+            throw e;
+        }
+        return connections;
+    }
+
+    private TableSnapshot readTable(Statement statement, String table, TableProjection projection)
+            throws SQLException {
+        String select = projection.columns.length == 0 ? "1" : projection.select("");
+        TableSnapshot.Builder builder = TableSnapshot.builder(table, projection.columns);
+        @Cleanup ResultSet resultSet = statement.executeQuery("SELECT " + select + " FROM " + table);
+        while (resultSet.next()) {
+            Object[] values = new Object[projection.columns.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = convertValue(resultSet.getObject(i + 1));
+            }
+            builder.addRow(getKey(table, projection, values), values);
+        }
+        return builder.build();
+    }
+
+    private Map<String, Object> readRecord(ResultSet resultSet, String[] columns, int from) throws SQLException {
+        Map<String, Object> record = new LinkedHashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            record.put(columns[i], convertValue(resultSet.getObject(i + from)));
+        }
+        return record;
+    }
+
+    private TableProjection getProjection(String table, Set<String> exclude) throws SQLException {
+        Set<String> excluded = exclude == null ? Set.of() : exclude;
+        TableProjection projection = projections.get(table);
+        if (projection == null || !projection.exclude.equals(excluded)) {
+            List<String> columns = tableColumns.get(table);
+            if (columns == null) {
+                columns = readColumns(table).getOrDefault(table, List.of());
+                tableColumns.put(table, columns);
+            }
+            String[] selected = columns.stream().filter(c -> !excluded.contains(c)).toArray(String[]::new);
+            List<String> selectedList = Arrays.asList(selected);
+            List<String> key = getPrimaryKeys().get(table);
+            int[] keyIndexes = key == null ? null : key.stream().mapToInt(selectedList::indexOf).toArray();
+            projection = new TableProjection(Set.copyOf(excluded), selected, keyIndexes);
+            projections.put(table, projection);
+        }
+        return projection;
+    }
+
+    private Map<String, List<String>> readColumns(String table) throws SQLException {
+        Map<String, List<String>> columns = new HashMap<>();
+        @Cleanup ResultSet resultSet = getConnection().getMetaData().getColumns(null, null, table, null);
+        while (resultSet.next()) {
+            columns.computeIfAbsent(resultSet.getString("TABLE_NAME"), t -> new ArrayList<>())
+                    .add(resultSet.getString("COLUMN_NAME"));
+        }
+        return columns;
+    }
+
+    private Object convertValue(Object object) {
+        if (object instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        } else if (object instanceof Date date) {
+            return date.toLocalDate();
+        } else if (object instanceof PgArray pgArray) {
+            return pgArray.toString();
+        } else if (object instanceof PGobject pgObject) {
+            return pgObject.toString();
+        }
+        return object;
+    }
+
+    private String getKey(String table, TableProjection projection, Object[] values) {
+        if (projection.keyIndexes == null) {
+            throw new RuntimeException(String.format("Table %s do not have a primary key", table));
+        }
+        StringBuilder key = new StringBuilder(table);
+        for (int keyIndex : projection.keyIndexes) {
+            key.append("_").append(keyIndex < 0 ? null : values[keyIndex]);
+        }
+        return key.toString();
     }
 
     private List<String> getPrimaryKey(String tableName) throws SQLException {
+        List<String> keys = getPrimaryKeys().get(tableName);
+        if (keys == null) {
+            throw new RuntimeException(String.format("Table %s do not have a primary key", tableName));
+        }
+        return keys;
+    }
+
+    private Map<String, List<String>> getPrimaryKeys() throws SQLException {
         if (primaryKeys == null) {
-            DatabaseMetaData databaseMetaData = connection.getMetaData();
+            DatabaseMetaData databaseMetaData = getConnection().getMetaData();
             primaryKeys = new HashMap<>();
             @Cleanup ResultSet resultSet = databaseMetaData.getPrimaryKeys(null, null, null);
             while (resultSet.next()) {
@@ -92,11 +337,7 @@ public class PostgresqlDataStorage implements SQLDataStorage {
                 key.add(resultSet.getString("COLUMN_NAME"));
             }
         }
-        List<String> keys = primaryKeys.get(tableName);
-        if (keys == null) {
-            throw new RuntimeException(String.format("Table %s do not have a primary key", tableName));
-        }
-        return keys;
+        return primaryKeys;
     }
 
     @Override
@@ -104,13 +345,19 @@ public class PostgresqlDataStorage implements SQLDataStorage {
         CLEAN_INSERT.execute(getDbUnitConnection(), dataSet);
     }
 
+    @Override
+    public void bulkLoadDataset(IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        CLEAN_COPY.execute(getDbUnitConnection(), dataSet);
+    }
+
     @Override
     public DatabaseConfig getDbunitConfig() throws Exception {
         return getDbUnitConnection().getConfig();
     }
 
-    private IDatabaseConnection getDbUnitConnection() throws DatabaseUnitException {
-        if (dbUnitConnection == null) {
+    private IDatabaseConnection getDbUnitConnection() throws DatabaseUnitException, SQLException {
+        Connection connection = getConnection();
+        if (dbUnitConnection == null || dbUnitConnection.getConnection() != connection) {
             dbUnitConnection = new DatabaseConnection(connection, null);
             dbUnitConnection.getConfig().setProperty(DatabaseConfig.PROPERTY_DATATYPE_FACTORY,
                     new CustomPostgresqlDataTypeFactory());
@@ -121,16 +368,27 @@ public class PostgresqlDataStorage implements SQLDataStorage {
 
     @Override
     public Set<String> getTables() throws SQLException {
-        @Cleanup ResultSet rs = connection.getMetaData().getTables(null, null, null,
+        @Cleanup ResultSet rs = getConnection().getMetaData().getTables(null, null, null,
                 new String[]{"TABLE"});
         Set<String> tables = new LinkedHashSet<>();
         while (rs.next()) {
             String tableName = rs.getString("TABLE_NAME");
-            if (!tableName.equals(allowedTablesTable)) {
+            if (!tableName.equals(allowedTablesTable) && !tableName.equals(changeLogTable)
+                    && !tableName.startsWith(checkpointPrefix)) {
                 tables.add(tableName);
             }
         }
         tableSequences.clear();
+        insertableColumns.clear();
+        primaryKeys = null;
+        referencingTables = null;
+        projections.clear();
+        tableColumns.clear();
+        readColumns(null).forEach((table, columns) -> {
+            if (tables.contains(table)) {
+                tableColumns.put(table, columns);
+            }
+        });
         String sql = """
                 SELECT
                     t.relname AS table,
@@ -143,7 +401,7 @@ public class PostgresqlDataStorage implements SQLDataStorage {
                         JOIN pg_class s ON d.objid = s.oid and s.relkind = 'S'
                         JOIN pg_namespace sns ON s.relnamespace = sns.oid;
                 """;
-        @Cleanup Statement statement = connection.createStatement();
+        @Cleanup Statement statement = getConnection().createStatement();
         @Cleanup ResultSet resultSet = statement.executeQuery(sql);
         while (resultSet.next()) {
             tableSequences.put(resultSet.getString("table"), resultSet.getString("seq"));
@@ -189,7 +447,7 @@ public class PostgresqlDataStorage implements SQLDataStorage {
                     .append("for each statement execute function testsRestrictedTableChanges();\n");
         }
 
-        @Cleanup Statement statement = connection.createStatement();
+        @Cleanup Statement statement = getConnection().createStatement();
         statement.execute(builder.toString());
     }
 
@@ -205,18 +463,485 @@ public class PostgresqlDataStorage implements SQLDataStorage {
 
     @Override
     public String getClearSql(Collection<String> tables) {
+        return String.join(";\n", getClearSqls(tables));
+    }
+
+    @Override
+    public String getRestartIdentitySql(Collection<String> tables) {
+        return String.join(";\n", getRestartIdentitySqls(tables));
+    }
+
+    @Override
+    public List<String> getClearSqls(Collection<String> tables) {
+        Set<String> toTruncate = truncate ? getTruncatableTables(tables) : Set.of();
+        List<String> toDelete = tables.stream().filter(t -> !toTruncate.contains(t)).toList();
+        List<String> sqls = new ArrayList<>(toDelete.size() + 3);
+        sqls.add("SET session_replication_role = 'replica'");
+        if (!toTruncate.isEmpty()) {
+            sqls.add("TRUNCATE " + String.join(", ", toTruncate) + " RESTART IDENTITY");
+        }
+        for (String table : toDelete) {
+            sqls.add("DELETE FROM " + table);
+        }
+        sqls.add("SET session_replication_role = 'origin'");
+        if (truncate) {
+            sqls.addAll(getRestartIdentitySqls(toDelete));
+        }
+        return sqls;
+    }
+
+    @Override
+    public boolean isClearRestartingIdentity() {
+        return truncate;
+    }
+
+    /**
+     * Returns the tables which can be truncated together. TRUNCATE fails if a table is referenced by a foreign key
+     * of a table outside the truncated set, so such tables are excluded until no outside references remain.
+     */
+    @SneakyThrows
+    private Set<String> getTruncatableTables(Collection<String> tables) {
+        Map<String, Set<String>> referencing = getReferencingTables();
+        Set<String> result = new LinkedHashSet<>(tables);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Iterator<String> iterator = result.iterator(); iterator.hasNext(); ) {
+                if (!result.containsAll(referencing.getOrDefault(iterator.next(), Set.of()))) {
+                    iterator.remove();
+                    changed = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Set<String>> getReferencingTables() throws SQLException {
+        if (referencingTables == null) {
+            Map<String, Set<String>> referencing = new HashMap<>();
+            @Cleanup Statement statement = getConnection().createStatement();
+            @Cleanup ResultSet resultSet = statement.executeQuery("""
+                    SELECT
+                        r.relname AS referenced,
+                        t.relname AS referencing
+                    FROM
+                        pg_constraint c
+                            JOIN pg_class t ON c.conrelid = t.oid
+                            JOIN pg_class r ON c.confrelid = r.oid
+                    WHERE c.contype = 'f'
+                    """);
+            while (resultSet.next()) {
+                referencing.computeIfAbsent(resultSet.getString("referenced"), t -> new HashSet<>())
+                        .add(resultSet.getString("referencing"));
+            }
+            referencingTables = referencing;
+        }
+        return referencingTables;
+    }
+
+    @Override
+    public List<String> getRestartIdentitySqls(Collection<String> tables) {
+        return tables.stream().map(tableSequences::get).filter(Objects::nonNull)
+                .map(s -> "ALTER SEQUENCE " + s + " RESTART").toList();
+    }
+
+    @Override
+    public boolean isBatchSupported() {
+        return true;
+    }
+
+    @Override
+    public void executeBatch(Collection<String> tablesToAllow, Collection<String> tablesToDeny,
+                             List<String> sqls) throws SQLException {
+        if (!tablesToDeny.isEmpty()) {
+            @Cleanup PreparedStatement statement = getConnection().prepareStatement(
+                    "delete from " + allowedTablesTable + " where name = ?");
+            for (String table : tablesToDeny) {
+                statement.setString(1, table);
+                statement.addBatch();
+            }
+            executeBatch(statement, "restrict tables", tablesToDeny.size());
+        }
+        if (!tablesToAllow.isEmpty()) {
+            @Cleanup PreparedStatement statement = getConnection().prepareStatement(
+                    "insert into " + allowedTablesTable + " values (?)");
+            for (String table : tablesToAllow) {
+                statement.setString(1, table);
+                statement.addBatch();
+            }
+            executeBatch(statement, "allow tables", tablesToAllow.size());
+        }
+        if (!sqls.isEmpty()) {
+            @Cleanup Statement statement = getConnection().createStatement();
+            for (String sql : sqls) {
+                statement.addBatch(sql);
+            }
+            executeBatch(statement, "statements", sqls.size());
+        }
+    }
+
+    private void executeBatch(Statement statement, String batchName, int size) throws SQLException {
+        long start = System.nanoTime();
+        int[] counts = statement.executeBatch();
+        if (log.isDebugEnabled()) {
+            long rows = Arrays.stream(counts).filter(c -> c > 0).asLongStream().sum();
+            log.debug("Batch '{}' {}: {} statements, {} rows, {} ms", name, batchName, size, rows,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @Override
+    public boolean isCheckpointsSupported() {
+        return true;
+    }
+
+    @Override
+    public void saveCheckpoint(Collection<String> tables) throws SQLException {
+        StringBuilder builder = new StringBuilder();
+        for (String table : tables) {
+            String checkpoint = checkpoints.computeIfAbsent(table, t -> checkpointPrefix + checkpointCounter++);
+            appendSaveCheckpoint(builder, table, checkpoint);
+        }
+        @Cleanup Statement statement = getConnection().createStatement();
+        statement.execute(builder.toString());
+    }
+
+    @Override
+    public void restoreCheckpoint(Collection<String> tables) throws SQLException {
         StringBuilder builder = new StringBuilder();
         builder.append("SET session_replication_role = 'replica';\n");
         for (String table : tables) {
-            builder.append("DELETE FROM ").append(table).append(";\n");
+            String checkpoint = checkpoints.get(table);
+            if (checkpoint == null) {
+                throw new IllegalStateException(String.format("Table %s do not have a checkpoint", table));
+            }
+            appendRestoreCheckpoint(builder, table, checkpoint);
         }
         builder.append("SET session_replication_role = 'origin'");
-        return builder.toString();
+        @Cleanup Statement statement = getConnection().createStatement();
+        statement.execute(builder.toString());
     }
 
     @Override
-    public String getRestartIdentitySql(Collection<String> tables) {
-        return tables.stream().map(tableSequences::get).filter(Objects::nonNull)
-                .map(s -> "ALTER SEQUENCE " + s + " RESTART").collect(Collectors.joining(";\n"));
+    public void saveStateCheckpoint(String id, Collection<String> tables) throws SQLException {
+        Map<String, String> stateCheckpoint = new HashMap<>();
+        Map<String, String> sequences = new HashMap<>();
+        StringBuilder builder = new StringBuilder();
+        @Cleanup Statement statement = getConnection().createStatement();
+        for (String table : tables) {
+            String checkpoint = checkpointPrefix + checkpointCounter++;
+            stateCheckpoint.put(table, checkpoint);
+            appendSaveCheckpoint(builder, table, checkpoint);
+            String sequence = tableSequences.get(table);
+            if (sequence != null) {
+                @Cleanup ResultSet resultSet = statement.executeQuery("SELECT last_value, is_called FROM " + sequence);
+                resultSet.next();
+                sequences.put(table, "SELECT setval('" + sequence + "', " + resultSet.getLong(1) + ", "
+                        + resultSet.getBoolean(2) + ")");
+            }
+        }
+        statement.execute(builder.toString());
+        stateCheckpoints.put(id, stateCheckpoint);
+        stateSequences.put(id, sequences);
+    }
+
+    @Override
+    public void restoreStateCheckpoint(String id, Collection<String> tables) throws SQLException {
+        Map<String, String> stateCheckpoint = stateCheckpoints.get(id);
+        if (stateCheckpoint == null) {
+            throw new IllegalStateException(String.format("State checkpoint %s not found", id));
+        }
+        Map<String, String> sequences = stateSequences.get(id);
+        StringBuilder builder = new StringBuilder();
+        builder.append("SET session_replication_role = 'replica';\n");
+        for (String table : tables) {
+            String checkpoint = stateCheckpoint.get(table);
+            if (checkpoint == null) {
+                throw new IllegalStateException(String.format("Table %s is not saved in state checkpoint %s",
+                        table, id));
+            }
+            appendRestoreCheckpoint(builder, table, checkpoint);
+            String setval = sequences.get(table);
+            if (setval != null) {
+                builder.append(setval).append(";\n");
+            }
+        }
+        builder.append("SET session_replication_role = 'origin'");
+        @Cleanup Statement statement = getConnection().createStatement();
+        statement.execute(builder.toString());
+    }
+
+    private void appendSaveCheckpoint(StringBuilder builder, String table, String checkpoint) {
+        builder.append("DROP TABLE IF EXISTS ").append(checkpoint).append(";\n")
+                .append("CREATE UNLOGGED TABLE ").append(checkpoint).append(" AS TABLE ").append(table)
+                .append(";\n");
+    }
+
+    private void appendRestoreCheckpoint(StringBuilder builder, String table, String checkpoint)
+            throws SQLException {
+        String columns = getInsertableColumns(table);
+        builder.append("DELETE FROM ").append(table).append(";\n");
+        if (!columns.isEmpty()) {
+            builder.append("INSERT INTO ").append(table).append(" (").append(columns)
+                    .append(") OVERRIDING SYSTEM VALUE SELECT ").append(columns).append(" FROM ")
+                    .append(checkpoint).append(";\n");
+        }
+    }
+
+    /**
+     * Returns quoted columns of the table except {@code GENERATED ALWAYS AS (...) STORED} ones,
+     * which cannot be inserted into.
+     */
+    private String getInsertableColumns(String table) throws SQLException {
+        String columns = insertableColumns.get(table);
+        if (columns == null) {
+            List<String> list = new ArrayList<>();
+            @Cleanup PreparedStatement statement = getConnection().prepareStatement("""
+                    SELECT attname
+                    FROM pg_attribute
+                    WHERE attrelid = ?::regclass AND attnum > 0 AND NOT attisdropped AND attgenerated = ''
+                    ORDER BY attnum
+                    """);
+            statement.setString(1, table);
+            @Cleanup ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                list.add(quote(resultSet.getString(1)));
+            }
+            columns = String.join(", ", list);
+            insertableColumns.put(table, columns);
+        }
+        return columns;
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public void dropCheckpoints() throws SQLException {
+        List<String> tables = new ArrayList<>(checkpoints.values());
+        stateCheckpoints.values().forEach(c -> tables.addAll(c.values()));
+        checkpoints.clear();
+        stateCheckpoints.clear();
+        stateSequences.clear();
+        if (tables.isEmpty()) {
+            return;
+        }
+        @Cleanup Statement statement = getConnection().createStatement();
+        statement.execute("DROP TABLE IF EXISTS " + String.join(", ", tables));
+    }
+
+    @Override
+    public void close() {
+        if (readExecutor != null) {
+            readExecutor.shutdownNow();
+            readExecutor = null;
+        }
+    }
+
+    @Override
+    public boolean isChangeLogSupported() {
+        return true;
+    }
+
+    @Override
+    public void initChangeLog(Collection<String> tables) throws SQLException {
+        StringBuilder builder = new StringBuilder("""
+                create unlogged table if not exists :tableName
+                (
+                    table_name text not null,
+                    pk         jsonb
+                );
+                grant insert on :tableName to public;
+                create or replace function testsLogRowChanges()
+                    returns trigger
+                    language plpgsql
+                as
+                $$
+                begin
+                    IF tg_op <> 'INSERT' THEN
+                        INSERT INTO :tableName
+                        SELECT tg_table_name, jsonb_object_agg(k, to_jsonb(OLD) -> k) FROM unnest(tg_argv) k;
+                    END IF;
+                    IF tg_op <> 'DELETE' THEN
+                        INSERT INTO :tableName
+                        SELECT tg_table_name, jsonb_object_agg(k, to_jsonb(NEW) -> k) FROM unnest(tg_argv) k;
+                    END IF;
+                    RETURN NULL;
+                end;
+                $$;
+                create or replace function testsLogTableChanges()
+                    returns trigger
+                    language plpgsql
+                as
+                $$
+                begin
+                    INSERT INTO :tableName VALUES (tg_table_name, null);
+                    RETURN NULL;
+                end;
+                $$;
+                """.replace(":tableName", changeLogTable)
+        );
+
+        Map<String, List<String>> keys = getPrimaryKeys();
+        for (String name : tables) {
+            List<String> key = keys.get(name);
+            if (key == null) {
+                builder.append("create trigger ").append(name).append("_tests_changes\n")
+                        .append("after insert or update or delete or truncate on ").append(name).append("\n")
+                        .append("for each statement execute function testsLogTableChanges();\n");
+                continue;
+            }
+            builder.append("create trigger ").append(name).append("_tests_changes\n")
+                    .append("after insert or update or delete on ").append(name).append("\n")
+                    .append("for each row execute function testsLogRowChanges(")
+                    .append(key.stream().map(k -> "'" + k + "'").collect(Collectors.joining(", "))).append(");\n")
+                    .append("create trigger ").append(name).append("_tests_truncate\n")
+                    .append("after truncate on ").append(name).append("\n")
+                    .append("for each statement execute function testsLogTableChanges();\n");
+        }
+
+        @Cleanup Statement statement = getConnection().createStatement();
+        statement.execute(builder.toString());
+    }
+
+    @Override
+    public Set<String> clearChangeLog() throws SQLException {
+        Set<String> tables = new HashSet<>();
+        @Cleanup Statement statement = getConnection().createStatement();
+        @Cleanup ResultSet resultSet = statement.executeQuery(
+                "WITH d AS (DELETE FROM " + changeLogTable + " RETURNING table_name) SELECT DISTINCT table_name FROM d");
+        while (resultSet.next()) {
+            tables.add(resultSet.getString(1));
+        }
+        return tables;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> getChangedRows(Collection<String> tables,
+                                                           Map<String, Set<String>> excludedRows) throws SQLException {
+        Map<String, List<String>> changedKeys = new LinkedHashMap<>();
+        @Cleanup Statement statement = getConnection().createStatement();
+        try (ResultSet resultSet = statement.executeQuery("WITH d AS (DELETE FROM " + changeLogTable
+                + " RETURNING table_name, pk) SELECT DISTINCT table_name, pk::text FROM d")) {
+            while (resultSet.next()) {
+                String table = resultSet.getString(1);
+                String pk = resultSet.getString(2);
+                if (!tables.contains(table)) {
+                    continue;
+                }
+                if (pk == null) {
+                    changedKeys.put(table, null);
+                } else if (!changedKeys.containsKey(table)) {
+                    changedKeys.put(table, new ArrayList<>(List.of(pk)));
+                } else if (changedKeys.get(table) != null) {
+                    changedKeys.get(table).add(pk);
+                }
+            }
+        }
+
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : changedKeys.entrySet()) {
+            String table = entry.getKey();
+            if (entry.getValue() == null) {
+                result.put(table, null);
+                continue;
+            }
+            List<String> key = getPrimaryKey(table);
+            TableProjection projection = getProjection(table, excludedRows.get(table));
+            String sql = "SELECT t." + quote(key.get(0)) + " IS NOT NULL, "
+                    + key.stream().map(k -> "r." + quote(k)).collect(Collectors.joining(", "))
+                    + (projection.columns.length == 0 ? "" : ", " + projection.select("t."))
+                    + " FROM jsonb_array_elements(?::jsonb) e"
+                    + " CROSS JOIN LATERAL jsonb_populate_record(null::" + table + ", e.value) r"
+                    + " LEFT JOIN " + table + " t ON "
+                    + key.stream().map(k -> "t." + quote(k) + " = r." + quote(k))
+                    .collect(Collectors.joining(" AND "));
+            @Cleanup PreparedStatement preparedStatement = getConnection().prepareStatement(sql);
+            preparedStatement.setString(1, "[" + String.join(", ", entry.getValue()) + "]");
+            @Cleanup ResultSet resultSet = preparedStatement.executeQuery();
+            Map<String, Object> rows = new LinkedHashMap<>();
+            while (resultSet.next()) {
+                StringBuilder rowKey = new StringBuilder(table);
+                for (int i = 0; i < key.size(); i++) {
+                    Object value = projection.keyIndexes[i] < 0 ? null : convertValue(resultSet.getObject(i + 2));
+                    rowKey.append("_").append(value);
+                }
+                rows.put(rowKey.toString(), resultSet.getBoolean(1)
+                        ? readRecord(resultSet, projection.columns, key.size() + 2) : null);
+            }
+            result.put(table, rows);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean isTableChecksumsSupported() {
+        return true;
+    }
+
+    @Override
+    public Map<String, String> getTableChecksums(Collection<String> tables) throws SQLException {
+        Map<String, String> checksums = new HashMap<>();
+        if (tables.isEmpty()) {
+            return checksums;
+        }
+        // sequences are not transactional, so their state is a part of the checksum: a test inserting and
+        // deleting a row leaves the rows unchanged, but not the identity values of the table
+        String sql = tables.stream()
+                .map(t -> "SELECT '" + t + "', count(*), "
+                        + "coalesce(sum(('x' || substr(md5(t::text), 1, 16))::bit(64)::bigint), 0), "
+                        + getSequenceState(t) + " FROM " + t + " t")
+                .collect(Collectors.joining("\nUNION ALL\n"));
+        @Cleanup Statement statement = getConnection().createStatement();
+        @Cleanup ResultSet resultSet = statement.executeQuery(sql);
+        while (resultSet.next()) {
+            String checksum = resultSet.getLong(2) + ":" + resultSet.getString(3);
+            String sequenceState = resultSet.getString(4);
+            checksums.put(resultSet.getString(1), sequenceState == null ? checksum : checksum + ":" + sequenceState);
+        }
+        return checksums;
+    }
+
+    @Override
+    public boolean isSequenceStatesSupported() {
+        return true;
+    }
+
+    @Override
+    public Map<String, String> getSequenceStates(Collection<String> tables) throws SQLException {
+        Map<String, String> states = new HashMap<>();
+        String sql = tables.stream()
+                .filter(tableSequences::containsKey)
+                .map(t -> "SELECT '" + t + "', " + getSequenceState(t))
+                .collect(Collectors.joining("\nUNION ALL\n"));
+        if (sql.isEmpty()) {
+            return states;
+        }
+        @Cleanup Statement statement = getConnection().createStatement();
+        @Cleanup ResultSet resultSet = statement.executeQuery(sql);
+        while (resultSet.next()) {
+            states.put(resultSet.getString(1), resultSet.getString(2));
+        }
+        return states;
+    }
+
+    private String getSequenceState(String table) {
+        String sequence = tableSequences.get(table);
+        return sequence == null ? "NULL::text"
+                : "(SELECT last_value || ':' || is_called FROM " + sequence + ")";
+    }
+
+    @RequiredArgsConstructor
+    private static class TableProjection {
+        private final Set<String> exclude;
+        private final String[] columns;
+        private final int[] keyIndexes;
+
+        String select(String alias) {
+            return Arrays.stream(columns)
+                    .map(c -> alias + quote(c))
+                    .collect(Collectors.joining(", "));
+        }
     }
 }
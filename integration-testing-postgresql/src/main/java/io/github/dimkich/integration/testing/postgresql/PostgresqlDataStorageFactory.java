@@ -1,8 +1,10 @@
 package io.github.dimkich.integration.testing.postgresql;
 
 import com.playtika.testcontainer.postgresql.PostgreSQLProperties;
+import io.github.dimkich.integration.testing.storage.sql.SQLConnectionPool;
 import io.github.dimkich.integration.testing.storage.sql.SQLDataStorage;
 import io.github.dimkich.integration.testing.storage.sql.SQLDataStorageFactory;
+import io.github.dimkich.integration.testing.storage.sql.SQLStorageProperties;
 import jakarta.annotation.Nullable;
 import lombok.RequiredArgsConstructor;
 import org.postgresql.Driver;
@@ -38,6 +40,13 @@ public class PostgresqlDataStorageFactory implements SQLDataStorageFactory {
 
     @Override
     public SQLDataStorage createStorage(String name, Connection connection, String username) {
-        return new PostgresqlDataStorage(name, connection, username);
+        return new PostgresqlDataStorage(name, SQLConnectionPool.of(name, connection), username, 1, false);
+    }
+
+    @Override
+    public SQLDataStorage createStorage(String name, SQLConnectionPool connectionPool, String username,
+                                        SQLStorageProperties properties) {
+        return new PostgresqlDataStorage(name, connectionPool, username, properties.getReadConnectionCount(),
+                properties.isTruncateEnabled());
     }
 }
@@ -0,0 +1,292 @@
+package io.github.dimkich.integration.testing.postgresql;
+
+import com.playtika.testcontainer.postgresql.PostgreSQLProperties;
+import io.github.dimkich.integration.testing.storage.StorageProperties;
+import io.github.dimkich.integration.testing.storage.sql.SQLStorageProperties;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.ClassUtils;
+import org.testcontainers.containers.Container;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.MountableFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Caches the schema produced by Liquibase or Flyway migrations in the embedded PostgreSQL container.
+ * <p>
+ * Enabled with {@code integration.testing.storage.sql.schema-cache=true} and
+ * {@code integration.testing.storage.sql.cache-directory}. Before migrations run, a hash is calculated of:
+ * <ul>
+ *     <li>the container image;</li>
+ *     <li>the version of Liquibase or Flyway;</li>
+ *     <li>the migration settings affecting the resulting schema: Liquibase contexts, labels, changelog parameters
+ *     and default schema, or Flyway placeholders, schemas, history table and target version;</li>
+ *     <li>the migration files: all files in the directory of the Liquibase master changelog and its
+ *     subdirectories, or all files in the Flyway locations, including compiled Java migrations.</li>
+ * </ul>
+ * If a dump with this hash exists, it is restored with {@code psql} and migrations are skipped. Otherwise,
+ * migrations run and the database is dumped with {@code pg_dump}.
+ * <p>
+ * Liquibase changelogs included from outside the directory of the master changelog, and migrations depending
+ * on anything else, for example on data of the database or on environment variables, are not a part of the
+ * hash. Do not enable the cache for such migrations, or clear the cache directory when they change.
+ */
+@Slf4j
+public class PostgresqlSchemaCache implements BeanPostProcessor, BeanFactoryAware, EnvironmentAware {
+    private static final boolean LIQUIBASE_PRESENT = ClassUtils.isPresent(
+            "liquibase.integration.spring.SpringLiquibase", PostgresqlSchemaCache.class.getClassLoader());
+    private static final boolean FLYWAY_PRESENT = ClassUtils.isPresent(
+            "org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer",
+            PostgresqlSchemaCache.class.getClassLoader()) && ClassUtils.isPresent(
+            "org.flywaydb.core.Flyway", PostgresqlSchemaCache.class.getClassLoader());
+    private static final String CONTAINER_DUMP_FILE = "/tmp/integration-testing-schema.sql";
+
+    private final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+    private final Map<String, Path> dumps = new HashMap<>();
+    private BeanFactory beanFactory;
+    private Path directory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        String prefix = StorageProperties.class.getAnnotation(ConfigurationProperties.class).prefix() + ".sql";
+        SQLStorageProperties properties = Binder.get(environment)
+                .bind(prefix, Bindable.of(SQLStorageProperties.class))
+                .orElseGet(SQLStorageProperties::new);
+        if (properties.isSchemaCacheEnabled()) {
+            directory = Path.of(properties.getCacheDirectory(), "schemas");
+        }
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (directory == null) {
+            return bean;
+        }
+        if (LIQUIBASE_PRESENT && LiquibaseSupport.isMigration(bean)) {
+            Path file = getDumpFile(LiquibaseSupport.getLocations(bean), LiquibaseSupport.getSettings(bean));
+            if (file != null && restore(file)) {
+                LiquibaseSupport.skip(bean);
+            } else if (file != null) {
+                dumps.put(beanName, file);
+            }
+        } else if (FLYWAY_PRESENT && FlywaySupport.isMigration(bean)) {
+            Object flyway = FlywaySupport.getFlyway(beanFactory);
+            Path file = flyway == null ? null
+                    : getDumpFile(FlywaySupport.getLocations(flyway), FlywaySupport.getSettings(flyway));
+            if (file != null && restore(file)) {
+                return FlywaySupport.skip(flyway);
+            } else if (file != null) {
+                dumps.put(beanName, file);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Path file = dumps.remove(beanName);
+        if (file != null) {
+            dump(file);
+        }
+        return bean;
+    }
+
+    private Path getDumpFile(List<String> locations, List<String> settings) {
+        GenericContainer<?> container = getContainer();
+        if (container == null || locations.isEmpty()) {
+            return null;
+        }
+        return directory.resolve(hash(locations, settings, container.getDockerImageName()) + ".sql");
+    }
+
+    @SneakyThrows
+    private String hash(List<String> locations, List<String> settings, String image) {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(image.getBytes(StandardCharsets.UTF_8));
+        for (String setting : settings) {
+            digest.update((byte) 0);
+            digest.update(setting.getBytes(StandardCharsets.UTF_8));
+        }
+        for (String location : locations) {
+            List<Resource> resources = new ArrayList<>(Arrays.asList(resolver.getResources(location)));
+            resources.sort(Comparator.comparing(this::getUrl));
+            for (Resource resource : resources) {
+                if (!resource.isReadable()) {
+                    continue;
+                }
+                digest.update(Objects.requireNonNullElse(resource.getFilename(), "").getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = resource.getInputStream()) {
+                    digest.update(in.readAllBytes());
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @SneakyThrows
+    private String getUrl(Resource resource) {
+        return resource.getURL().toString();
+    }
+
+    @SneakyThrows
+    private boolean restore(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        GenericContainer<?> container = getContainer();
+        PostgreSQLProperties properties = beanFactory.getBean(PostgreSQLProperties.class);
+        container.copyFileToContainer(MountableFile.forHostPath(file), CONTAINER_DUMP_FILE);
+        Container.ExecResult result = container.execInContainer("psql", "-q", "-v", "ON_ERROR_STOP=1",
+                "-U", properties.getUser(), "-d", properties.getDatabase(), "-f", CONTAINER_DUMP_FILE);
+        if (result.getExitCode() != 0) {
+            throw new IllegalStateException(String.format("Failed to restore cached schema %s: %s", file,
+                    result.getStderr()));
+        }
+        log.info("Restored cached schema {} in {} ms", file, (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    private void dump(Path file) {
+        try {
+            PostgreSQLProperties properties = beanFactory.getBean(PostgreSQLProperties.class);
+            Container.ExecResult result = getContainer().execInContainer("pg_dump", "--no-owner",
+                    "-U", properties.getUser(), "-d", properties.getDatabase());
+            if (result.getExitCode() != 0) {
+                log.warn("Failed to dump schema: {}", result.getStderr());
+                return;
+            }
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.writeString(tmp, result.getStdout(), StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to dump schema to {}", file, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private GenericContainer<?> getContainer() {
+        if (!beanFactory.containsBean(PostgreSQLProperties.BEAN_NAME_EMBEDDED_POSTGRESQL)) {
+            return null;
+        }
+        return beanFactory.getBean(PostgreSQLProperties.BEAN_NAME_EMBEDDED_POSTGRESQL, GenericContainer.class);
+    }
+
+    private static String toPattern(String location) {
+        String path;
+        if (location.startsWith("filesystem:")) {
+            path = "file:" + location.substring("filesystem:".length());
+        } else if (location.startsWith("file:")) {
+            path = location;
+        } else {
+            path = location.replaceFirst("^classpath\\*?:", "").replaceFirst("^/", "");
+            path = "classpath*:" + path;
+        }
+        return path.endsWith("/") ? path + "**/*" : path + "/**/*";
+    }
+
+    private static String getVersion(Class<?> type) {
+        String version = type.getPackage().getImplementationVersion();
+        if (version != null) {
+            return version;
+        }
+        CodeSource source = type.getProtectionDomain().getCodeSource();
+        return source == null || source.getLocation() == null ? "" : source.getLocation().toString();
+    }
+
+    private static class LiquibaseSupport {
+        static boolean isMigration(Object bean) {
+            return bean instanceof liquibase.integration.spring.SpringLiquibase liquibase && liquibase.isShouldRun();
+        }
+
+        static List<String> getLocations(Object bean) {
+            String changeLog = ((liquibase.integration.spring.SpringLiquibase) bean).getChangeLog();
+            if (changeLog == null) {
+                return List.of();
+            }
+            int index = changeLog.lastIndexOf('/');
+            return List.of(index < 0 ? changeLog : toPattern(changeLog.substring(0, index)));
+        }
+
+        static List<String> getSettings(Object bean) {
+            liquibase.integration.spring.SpringLiquibase springLiquibase =
+                    (liquibase.integration.spring.SpringLiquibase) bean;
+            DirectFieldAccessor accessor = new DirectFieldAccessor(springLiquibase);
+            Object parameters = accessor.isReadableProperty("parameters") ? accessor.getPropertyValue("parameters")
+                    : null;
+            return List.of(
+                    "liquibase=" + getVersion(liquibase.integration.spring.SpringLiquibase.class),
+                    "contexts=" + springLiquibase.getContexts(),
+                    "labels=" + springLiquibase.getLabelFilter(),
+                    "parameters=" + (parameters instanceof Map<?, ?> map ? new TreeMap<>(map) : null),
+                    "defaultSchema=" + springLiquibase.getDefaultSchema());
+        }
+
+        static void skip(Object bean) {
+            ((liquibase.integration.spring.SpringLiquibase) bean).setShouldRun(false);
+        }
+    }
+
+    private static class FlywaySupport {
+        static boolean isMigration(Object bean) {
+            return bean instanceof FlywayMigrationInitializer;
+        }
+
+        static Object getFlyway(BeanFactory beanFactory) {
+            return beanFactory.getBeanProvider(Flyway.class).getIfUnique();
+        }
+
+        static List<String> getLocations(Object flyway) {
+            return Arrays.stream(((Flyway) flyway).getConfiguration().getLocations())
+                    .map(l -> toPattern(l.getDescriptor()))
+                    .toList();
+        }
+
+        static List<String> getSettings(Object flyway) {
+            Configuration configuration = ((Flyway) flyway).getConfiguration();
+            return List.of(
+                    "flyway=" + getVersion(Flyway.class),
+                    "placeholders=" + new TreeMap<>(configuration.getPlaceholders()),
+                    "schemas=" + Arrays.toString(configuration.getSchemas()),
+                    "defaultSchema=" + configuration.getDefaultSchema(),
+                    "table=" + configuration.getTable(),
+                    "target=" + configuration.getTarget());
+        }
+
+        static Object skip(Object flyway) {
+            return new FlywayMigrationInitializer((Flyway) flyway, f -> {
+            });
+        }
+    }
+}
@@ -96,11 +96,21 @@ public class ArrayDataType extends AbstractDataType {
         statement.setArray(column, array);
     }
 
-    private Object[] toArray(Object value) {
+    /**
+     * Splits an array literal like {@code {a, b, NULL}} into elements. Unquoted {@code NULL} elements
+     * are {@code null}, as in PostgreSQL array literals.
+     */
+    static Object[] toArray(Object value) {
         if (value instanceof String valueStr && StringUtils.hasText(valueStr)) {
             valueStr = valueStr.replaceAll("[{}]", "");
             valueStr = valueStr.replaceAll(", ", ",");
-            return valueStr.split(",");
+            Object[] array = valueStr.split(",");
+            for (int i = 0; i < array.length; i++) {
+                if ("NULL".equalsIgnoreCase((String) array[i])) {
+                    array[i] = null;
+                }
+            }
+            return array;
         }
         return new Object[]{};
     }
@@ -35,7 +35,7 @@ public class HStoreDataType extends AbstractDataType {
         statement.setObject(column, toMap(value));
     }
 
-    private Map<String, String> toMap(Object value) {
+    static Map<String, String> toMap(Object value) {
         Map<String, String> map = new LinkedHashMap<>();
         if (value instanceof String valueStr) {
             if (StringUtils.hasText(valueStr)) {
@@ -0,0 +1,289 @@
+package io.github.dimkich.integration.testing.postgresql;
+
+import io.github.dimkich.integration.testing.storage.sql.SQLConnectionPool;
+import lombok.Cleanup;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DefaultDataSet;
+import org.dbunit.dataset.DefaultTable;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostgresqlDataStorageTest {
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+    private static Connection connection;
+    private static PostgresqlDataStorage storage;
+    private static PostgresqlDataStorage truncating;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        postgres.start();
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+                postgres.getPassword());
+        execute("""
+                create table generated_column
+                (
+                    id    serial primary key,
+                    price int not null,
+                    total int generated always as (price * 2) stored
+                );
+                create table state_table
+                (
+                    id   serial primary key,
+                    name text
+                );
+                create extension if not exists hstore;
+                create table copy_types
+                (
+                    id      int primary key,
+                    tags    text[],
+                    attrs   hstore,
+                    data    bytea,
+                    created timestamp
+                );
+                create table logged_rows
+                (
+                    "Order" int primary key,
+                    name    text
+                );
+                create table fk_parent
+                (
+                    id   serial primary key,
+                    name text
+                );
+                create table fk_child
+                (
+                    id        serial primary key,
+                    parent_id int references fk_parent (id)
+                );
+                create table fk_tree
+                (
+                    id        serial primary key,
+                    parent_id int references fk_tree (id)
+                );
+                """);
+        storage = new PostgresqlDataStorage("test", SQLConnectionPool.of("test", connection),
+                postgres.getUsername(), 1, false);
+        storage.getTables();
+        storage.initChangeLog(List.of("logged_rows"));
+        truncating = new PostgresqlDataStorage("truncating", SQLConnectionPool.of("truncating", connection),
+                postgres.getUsername(), 1, true);
+        truncating.getTables();
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        connection.close();
+        postgres.stop();
+    }
+
+    @BeforeEach
+    void clear() throws Exception {
+        storage.dropCheckpoints();
+        execute("truncate generated_column, state_table, copy_types, logged_rows, fk_parent, fk_child, fk_tree " +
+                "restart identity");
+    }
+
+    @Test
+    void restoreCheckpointWithGeneratedColumn() throws Exception {
+        execute("insert into generated_column (price) values (1), (2)");
+        storage.saveCheckpoint(List.of("generated_column"));
+        execute("update generated_column set price = 10; insert into generated_column (price) values (3)");
+
+        storage.restoreCheckpoint(List.of("generated_column"));
+
+        assertEquals(List.of("1, 1, 2", "2, 2, 4"), select("select * from generated_column order by id"));
+    }
+
+    @Test
+    void restoreStateCheckpointOfGivenTables() throws Exception {
+        execute("insert into generated_column (price) values (1); insert into state_table (name) values ('a')");
+        storage.saveStateCheckpoint("state", Set.of("generated_column", "state_table"));
+        execute("delete from generated_column; insert into state_table (name) values ('b')");
+
+        storage.restoreStateCheckpoint("state", List.of("state_table"));
+
+        assertEquals(List.of(), select("select * from generated_column"));
+        assertEquals(List.of("1, a"), select("select * from state_table order by id"));
+        execute("insert into state_table (name) values ('c')");
+        assertEquals(List.of("1, a", "2, c"), select("select * from state_table order by id"));
+    }
+
+    @Test
+    void bulkLoadDatasetAsInsert() throws Exception {
+        DefaultTable table = new DefaultTable("copy_types", new Column[]{
+                new Column("id", DataType.UNKNOWN), new Column("tags", DataType.UNKNOWN),
+                new Column("attrs", DataType.UNKNOWN), new Column("data", DataType.UNKNOWN),
+                new Column("created", DataType.UNKNOWN)});
+        table.addRow(new Object[]{"1", "{a, NULL, b c, d\\e}", "a=>1, b=>x y", "AQID",
+                "2024-01-02 03:04:05.123"});
+        table.addRow(new Object[]{"2", null, null, null, null});
+        table.addRow(new Object[]{"3", "{}", "", null, "2024-12-31 23:59:59"});
+        DefaultDataSet dataSet = new DefaultDataSet(table);
+        String select = "select id, tags, attrs, encode(data, 'hex'), created from copy_types order by id";
+
+        storage.loadDataset(dataSet);
+        List<String> inserted = select(select);
+        storage.bulkLoadDataset(dataSet);
+
+        assertEquals(inserted, select(select));
+        assertEquals(List.of("t, d\\e"), select("select tags[2] is null, tags[4] from copy_types where id = 1"));
+    }
+
+    @Test
+    void getChangedRowsWithQuotedKey() throws Exception {
+        execute("insert into logged_rows values (1, 'a'), (2, 'b'), (3, 'c')");
+        storage.clearChangeLog();
+        execute("""
+                insert into logged_rows values (4, 'd');
+                update logged_rows set name = 'e' where "Order" = 2;
+                delete from logged_rows where "Order" = 1;
+                """);
+
+        Map<String, Map<String, Object>> changes = storage.getChangedRows(List.of("logged_rows"), Map.of());
+
+        Map<String, Object> rows = new HashMap<>();
+        rows.put("logged_rows_1", null);
+        rows.put("logged_rows_2", Map.of("Order", 2, "name", "e"));
+        rows.put("logged_rows_4", Map.of("Order", 4, "name", "d"));
+        assertEquals(Map.of("logged_rows", rows), changes);
+        assertEquals(Map.of(), storage.getChangedRows(List.of("logged_rows"), Map.of()));
+    }
+
+    @Test
+    void getTablesDataConcurrently() throws Exception {
+        execute("insert into state_table (name) values ('a'), ('b'); insert into logged_rows values (1, 'c')");
+        List<String> tables = List.of("state_table", "logged_rows", "generated_column");
+        SQLConnectionPool pool = new SQLConnectionPool("concurrent", () -> DriverManager.getConnection(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()), 2);
+        PostgresqlDataStorage concurrent = new PostgresqlDataStorage("concurrent", pool, postgres.getUsername(),
+                2, false);
+        try {
+            concurrent.getTables();
+            Map<String, Set<String>> excluded = Map.of("state_table", Set.of("name"));
+
+            assertEquals(storage.getTablesData(tables, excluded), concurrent.getTablesData(tables, excluded));
+            assertEquals(0, pool.getStats().getBorrowed());
+        } finally {
+            concurrent.close();
+            pool.close();
+        }
+    }
+
+    @Test
+    void tableChecksumsIncludeSequenceState() throws Exception {
+        List<String> tables = List.of("state_table", "logged_rows");
+        Map<String, String> checksums = storage.getTableChecksums(tables);
+        execute("insert into state_table (name) values ('a'); delete from state_table");
+        execute("insert into logged_rows values (1, 'a'); delete from logged_rows");
+
+        Map<String, String> changed = storage.getTableChecksums(tables);
+
+        assertNotEquals(checksums.get("state_table"), changed.get("state_table"));
+        assertEquals(checksums.get("logged_rows"), changed.get("logged_rows"));
+    }
+
+    @Test
+    void sequenceStates() throws Exception {
+        List<String> tables = List.of("state_table", "logged_rows");
+        Map<String, String> states = storage.getSequenceStates(tables);
+        execute("insert into state_table (name) values ('a'); delete from state_table");
+
+        Map<String, String> changed = storage.getSequenceStates(tables);
+
+        assertEquals(Set.of("state_table"), changed.keySet());
+        assertNotEquals(states.get("state_table"), changed.get("state_table"));
+    }
+
+    @Test
+    void readConsistently() throws Exception {
+        execute("insert into state_table (name) values ('a')");
+        List<String> tables = List.of("state_table");
+
+        List<Object> result = storage.readConsistently(() -> {
+            Map<String, String> checksums = storage.getTableChecksums(tables);
+            try (Connection other = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+                    postgres.getPassword()); Statement statement = other.createStatement()) {
+                statement.execute("insert into state_table (name) values ('b')");
+            }
+            return List.of(checksums, storage.getTablesData(tables, Map.of()));
+        });
+
+        assertEquals(1, ((Map<?, ?>) result.get(1)).size());
+        assertEquals(2, storage.getTablesData(tables, Map.of()).size());
+        assertNotEquals(result.get(0), storage.getTableChecksums(tables));
+        assertTrue(connection.getAutoCommit());
+    }
+
+    @Test
+    void truncateParentWithChild() throws Exception {
+        execute("insert into fk_parent (name) values ('a'); insert into fk_child (parent_id) values (1)");
+        List<String> sqls = truncating.getClearSqls(List.of("fk_parent", "fk_child"));
+
+        truncating.executeSql(sqls);
+
+        assertEquals(List.of("SET session_replication_role = 'replica'",
+                "TRUNCATE fk_parent, fk_child RESTART IDENTITY",
+                "SET session_replication_role = 'origin'"), sqls);
+        assertEquals(List.of(), select("select * from fk_child"));
+        execute("insert into fk_parent (name) values ('b'); insert into fk_child (parent_id) values (1)");
+        assertEquals(List.of("1, b"), select("select * from fk_parent"));
+        assertEquals(List.of("1, 1"), select("select * from fk_child"));
+    }
+
+    @Test
+    void deleteParentWithoutChild() throws Exception {
+        execute("insert into fk_parent (name) values ('a'), ('b')");
+        List<String> sqls = truncating.getClearSqls(List.of("fk_parent", "state_table"));
+
+        truncating.executeSql(sqls);
+
+        assertEquals(List.of("SET session_replication_role = 'replica'",
+                "TRUNCATE state_table RESTART IDENTITY",
+                "DELETE FROM fk_parent",
+                "SET session_replication_role = 'origin'",
+                "ALTER SEQUENCE fk_parent_id_seq RESTART"), sqls);
+        execute("insert into fk_parent (name) values ('c')");
+        assertEquals(List.of("1, c"), select("select * from fk_parent"));
+    }
+
+    @Test
+    void truncateSelfReferencingTable() throws Exception {
+        execute("insert into fk_tree (parent_id) values (null); insert into fk_tree (parent_id) values (1)");
+        List<String> sqls = truncating.getClearSqls(List.of("fk_tree"));
+
+        truncating.executeSql(sqls);
+
+        assertTrue(sqls.contains("TRUNCATE fk_tree RESTART IDENTITY"));
+        execute("insert into fk_tree (parent_id) values (null)");
+        assertEquals(List.of("1, null"), select("select * from fk_tree"));
+    }
+
+    static void execute(String sql) throws SQLException {
+        @Cleanup Statement statement = connection.createStatement();
+        statement.execute(sql);
+    }
+
+    static List<String> select(String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        @Cleanup Statement statement = connection.createStatement();
+        @Cleanup ResultSet resultSet = statement.executeQuery(sql);
+        int columns = resultSet.getMetaData().getColumnCount();
+        while (resultSet.next()) {
+            List<String> values = new ArrayList<>();
+            for (int i = 1; i <= columns; i++) {
+                values.add(resultSet.getString(i));
+            }
+            rows.add(String.join(", ", values));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.dimkich.integration.testing.postgresql;
+
+import com.playtika.testcontainer.postgresql.PostgreSQLProperties;
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.Cleanup;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostgresqlSchemaCacheTest {
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+    private static Connection connection;
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        postgres.start();
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+                postgres.getPassword());
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        connection.close();
+        postgres.stop();
+    }
+
+    @BeforeEach
+    void dropTable() throws SQLException {
+        execute("drop table if exists cached_table");
+    }
+
+    @Test
+    void dumpOnMissAndRestoreOnHit() throws Exception {
+        SpringLiquibase liquibase = liquibase(null);
+        migrate(createCache(true), liquibase);
+
+        assertTrue(liquibase.isShouldRun());
+        assertEquals(1, listDumps().size());
+
+        execute("drop table cached_table");
+        SpringLiquibase cached = liquibase(null);
+        assertSame(cached, createCache(true).postProcessBeforeInitialization(cached, "liquibase"));
+
+        assertFalse(cached.isShouldRun());
+        assertEquals(List.of("cached_table"), tables());
+    }
+
+    @Test
+    void missOnChangedSettings() throws Exception {
+        migrate(createCache(true), liquibase(null));
+        execute("drop table cached_table");
+
+        SpringLiquibase otherContexts = liquibase("other");
+        migrate(createCache(true), otherContexts);
+        execute("drop table cached_table");
+        SpringLiquibase otherParameters = liquibase(null);
+        otherParameters.setChangeLogParameters(Map.of("name", "value"));
+        migrate(createCache(true), otherParameters);
+
+        assertTrue(otherContexts.isShouldRun());
+        assertTrue(otherParameters.isShouldRun());
+        assertEquals(3, listDumps().size());
+    }
+
+    @Test
+    void skipWhenDisabled() throws Exception {
+        SpringLiquibase liquibase = liquibase(null);
+        migrate(createCache(false), liquibase);
+
+        assertTrue(liquibase.isShouldRun());
+        assertFalse(Files.exists(directory.resolve("schemas")));
+    }
+
+    @Test
+    void skipWhenMigrationDoesNotRun() throws Exception {
+        SpringLiquibase liquibase = liquibase(null);
+        liquibase.setShouldRun(false);
+        migrate(createCache(true), liquibase);
+
+        assertFalse(Files.exists(directory.resolve("schemas")));
+    }
+
+    private PostgresqlSchemaCache createCache(boolean enabled) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("integration.testing.storage.sql.cache-directory", directory.toString())
+                .withProperty("integration.testing.storage.sql.schema-cache", String.valueOf(enabled));
+        PostgreSQLProperties properties = new PostgreSQLProperties();
+        properties.setUser(postgres.getUsername());
+        properties.setDatabase(postgres.getDatabaseName());
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton(PostgreSQLProperties.BEAN_NAME_EMBEDDED_POSTGRESQL, postgres);
+        beanFactory.registerSingleton("postgreSQLProperties", properties);
+        PostgresqlSchemaCache cache = new PostgresqlSchemaCache();
+        cache.setBeanFactory(beanFactory);
+        cache.setEnvironment(environment);
+        return cache;
+    }
+
+    private static SpringLiquibase liquibase(String contexts) {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setChangeLog("classpath:schema-cache/changelog.xml");
+        liquibase.setContexts(contexts);
+        return liquibase;
+    }
+
+    /**
+     * Runs the cache callbacks around a migration, which is simulated by creating the table of the changelog.
+     */
+    private static void migrate(PostgresqlSchemaCache cache, SpringLiquibase liquibase) throws SQLException {
+        cache.postProcessBeforeInitialization(liquibase, "liquibase");
+        if (liquibase.isShouldRun()) {
+            execute("create table cached_table (id int primary key)");
+        }
+        cache.postProcessAfterInitialization(liquibase, "liquibase");
+    }
+
+    private List<Path> listDumps() throws Exception {
+        try (var files = Files.list(directory.resolve("schemas"))) {
+            return files.toList();
+        }
+    }
+
+    private static List<String> tables() throws SQLException {
+        @Cleanup Statement statement = connection.createStatement();
+        @Cleanup ResultSet resultSet = statement.executeQuery(
+                "select tablename from pg_tables where schemaname = 'public' order by tablename");
+        List<String> tables = new ArrayList<>();
+        while (resultSet.next()) {
+            tables.add(resultSet.getString(1));
+        }
+        return tables;
+    }
+
+    private static void execute(String sql) throws SQLException {
+        @Cleanup Statement statement = connection.createStatement();
+        statement.execute(sql);
+    }
+}
@@ -7,17 +7,21 @@ import io.github.dimkich.integration.testing.format.TestFormatConfig;
 import io.github.dimkich.integration.testing.initialization.InitializationConfig;
 import io.github.dimkich.integration.testing.openapi.OpenApiConfig;
 import io.github.dimkich.integration.testing.storage.StorageConfig;
+import io.github.dimkich.integration.testing.util.ImmutableTypes;
 import io.github.dimkich.integration.testing.wait.completion.WaitCompletionConfig;
 import io.github.dimkich.integration.testing.web.WebConfig;
 import io.github.sugarcubes.cloner.Cloner;
 import io.github.sugarcubes.cloner.Cloners;
+import io.github.sugarcubes.cloner.CopyAction;
 import io.github.sugarcubes.cloner.ReflectionClonerBuilder;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Configuration
 @ConditionalOnProperty(value = "integration.testing.enabled", havingValue = "true", matchIfMissing = true)
@@ -28,11 +32,15 @@ public class IntegrationTestConfig {
     @Bean
     Cloner sugarCubesCloner(List<TestSetupModule> modules) {
         ReflectionClonerBuilder builder = Cloners.builder();
+        Set<Class<?>> configuredTypes = new HashSet<>();
         for (TestSetupModule module : modules) {
             module.getFieldActions().forEach(builder::fieldAction);
             module.getTypeActions().forEach(builder::typeAction);
             module.getPredicateTypeActions().forEach(builder::typeAction);
+            module.getFieldActions().keySet().forEach(f -> configuredTypes.add(f.getDeclaringClass()));
+            configuredTypes.addAll(module.getTypeActions().keySet());
         }
+        builder.typeAction(new ImmutableTypes(configuredTypes)::isImmutable, CopyAction.ORIGINAL);
         return builder.build();
     }
 }
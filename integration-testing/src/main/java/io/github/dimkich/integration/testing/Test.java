@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.*;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
 import eu.ciechanowiec.sneakyfun.SneakyConsumer;
 import io.github.dimkich.integration.testing.execution.MockInvoke;
+import io.github.dimkich.integration.testing.execution.MockInvokeIndex;
 import io.github.dimkich.integration.testing.initialization.TestInit;
 import io.github.dimkich.integration.testing.message.MessageDto;
 import lombok.AccessLevel;
@@ -14,12 +15,18 @@ import org.apache.commons.lang3.ClassUtils;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.test.util.AopTestUtils;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -62,6 +69,13 @@ import java.util.stream.Stream;
 @JsonPropertyOrder({"name", "init", "bean", "method", "request", "inboundMessage", "mockInvoke", "response",
         "custom", "dataStorageDiff", "outboundMessages", "test"})
 public abstract class Test {
+    private static final ClassValue<Map<List<Object>, Optional<MethodInvoker>>> methodInvokers = new ClassValue<>() {
+        @Override
+        protected Map<List<Object>, Optional<MethodInvoker>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     /**
      * Enumeration of test types in the hierarchical test structure.
      * <p>
@@ -119,6 +133,14 @@ public abstract class Test {
     private int lineNumber;
     @JsonIgnore
     private int columnNumber;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private MockInvokeIndex mockInvokeIndex;
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Test[] parentsAndItselfDesc;
 
     /**
      * Returns the type of this test.
@@ -183,6 +205,7 @@ public abstract class Test {
                 parentTest.before(before, after);
             }
             check();
+            mockInvokeIndex = new MockInvokeIndex(mockInvoke);
             before.accept(this);
             initialized = true;
         }
@@ -310,13 +333,13 @@ public abstract class Test {
      */
     public void executeMethod(BeanFactory beanFactory, BiFunction<String, Object, Object> responseConverter) throws IllegalAccessException {
         Object target = beanFactory.getBean(bean);
-        Method reflectionMethod = findReflectionMethodByArgs(target, method, request);
-        if (reflectionMethod == null) {
+        MethodInvoker invoker = findMethodInvokerByArgs(target, method, request);
+        if (invoker == null) {
             throw new RuntimeException(String.format("Method %s not found in bean %s", method, bean));
         }
         Object[] args = request == null ? new Object[]{} : request.toArray();
         try {
-            response = responseConverter.apply(method, reflectionMethod.invoke(target, args));
+            response = responseConverter.apply(method, invoker.invoke(target, args));
         } catch (InvocationTargetException e) {
             response = responseConverter.apply(method, e.getTargetException());
         }
@@ -331,10 +354,10 @@ public abstract class Test {
      * @return the matching MockInvoke, or null if no match is found
      */
     public MockInvoke search(String mockName, String method, List<Object> args) {
-        return mockInvoke.stream()
-                .filter(mi -> mi.equalsTo(mockName, method, args))
-                .findFirst()
-                .orElse(null);
+        if (mockInvokeIndex == null || !mockInvokeIndex.isIndexOf(mockInvoke)) {
+            mockInvokeIndex = new MockInvokeIndex(mockInvoke);
+        }
+        return mockInvokeIndex.search(mockName, method, args);
     }
 
     /**
@@ -346,10 +369,8 @@ public abstract class Test {
      */
     @JsonIgnore
     public Stream<Test> getParentsAndItselfAsc() {
-        if (parentTest == null) {
-            return Stream.of(this);
-        }
-        return Stream.concat(parentTest.getParentsAndItselfAsc(), Stream.of(this));
+        List<Test> tests = getParentsAndItselfDescList();
+        return IntStream.range(0, tests.size()).mapToObj(i -> tests.get(tests.size() - 1 - i));
     }
 
     /**
@@ -361,10 +382,38 @@ public abstract class Test {
      */
     @JsonIgnore
     public Stream<Test> getParentsAndItselfDesc() {
-        if (parentTest == null) {
-            return Stream.of(this);
+        return getParentsAndItselfDescList().stream();
+    }
+
+    /**
+     * Returns this test and all its parents in descending order (this to root).
+     * <p>
+     * The chain is cached and rebuilt only when a parent in it has changed.
+     *
+     * @return an unmodifiable list containing this test and all its parents, from this to root
+     */
+    @JsonIgnore
+    public List<Test> getParentsAndItselfDescList() {
+        if (!isParentsChainValid()) {
+            List<Test> tests = new ArrayList<>();
+            for (Test test = this; test != null; test = test.parentTest) {
+                tests.add(test);
+            }
+            parentsAndItselfDesc = tests.toArray(Test[]::new);
+        }
+        return Collections.unmodifiableList(Arrays.asList(parentsAndItselfDesc));
+    }
+
+    private boolean isParentsChainValid() {
+        if (parentsAndItselfDesc == null) {
+            return false;
+        }
+        for (int i = 0; i < parentsAndItselfDesc.length - 1; i++) {
+            if (parentsAndItselfDesc[i].parentTest != parentsAndItselfDesc[i + 1]) {
+                return false;
+            }
         }
-        return Stream.concat(Stream.of(this), parentTest.getParentsAndItselfDesc());
+        return parentsAndItselfDesc[parentsAndItselfDesc.length - 1].parentTest == null;
     }
 
     /**
@@ -423,17 +472,19 @@ public abstract class Test {
         return getLevel() == level ? Optional.of(this) : Optional.empty();
     }
 
-    private Method findReflectionMethodByArgs(Object target, String method, List<Object> args) {
+    private MethodInvoker findMethodInvokerByArgs(Object target, String method, List<Object> args) {
         args = args == null ? List.of() : args;
-        List<Class<?>> types = args.stream()
-                .map(a -> a == null ? null : a.getClass())
-                .collect(Collectors.toList());
-        return findReflectionMethodByTypes(target, method, types);
+        Class<?> targetClass = AopTestUtils.getUltimateTargetObject(target).getClass();
+        List<Object> key = new ArrayList<>(args.size() + 1);
+        key.add(method);
+        args.forEach(a -> key.add(a == null ? null : a.getClass()));
+        return methodInvokers.get(targetClass).computeIfAbsent(key, k -> Optional.ofNullable(
+                        findReflectionMethodByTypes(targetClass, method, k.subList(1, k.size()).toArray(Class[]::new)))
+                .map(MethodInvoker::new))
+                .orElse(null);
     }
 
-    private Method findReflectionMethodByTypes(Object target, String method, List<Class<?>> types) {
-        Class<?>[] argArray = types.toArray(Class[]::new);
-        Class<?> targetClass = AopTestUtils.getUltimateTargetObject(target).getClass();
+    private Method findReflectionMethodByTypes(Class<?> targetClass, String method, Class<?>[] argArray) {
         return Arrays.stream(targetClass.getMethods())
                 .filter(m -> m.getName().equals(method))
                 .filter(m -> m.getParameterCount() == argArray.length)
@@ -451,4 +502,59 @@ public abstract class Test {
         }
         return true;
     }
+
+    /**
+     * Invoker of a resolved test method. Uses a {@link MethodHandle} when the method is accessible
+     * and the target and arguments match the method, and falls back to {@link Method#invoke} otherwise,
+     * so only exceptions thrown by the method itself are wrapped into {@link InvocationTargetException}.
+     */
+    private static class MethodInvoker {
+        private static final MethodType TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+        private final Method method;
+        private final Class<?>[] parameterTypes;
+        private final Class<?>[] wrapperTypes;
+        private final MethodHandle handle;
+
+        MethodInvoker(Method method) {
+            this.method = method;
+            parameterTypes = method.getParameterTypes();
+            wrapperTypes = ClassUtils.primitivesToWrappers(parameterTypes);
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+                if (Modifier.isStatic(method.getModifiers())) {
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                }
+                handle = handle.asSpreader(Object[].class, method.getParameterCount()).asType(TYPE);
+            } catch (IllegalAccessException e) {
+                handle = null;
+            }
+            this.handle = handle;
+        }
+
+        Object invoke(Object target, Object[] args) throws IllegalAccessException, InvocationTargetException {
+            if (handle == null || !method.getDeclaringClass().isInstance(target) || !isApplicable(args)) {
+                return method.invoke(target, args);
+            }
+            try {
+                return (Object) handle.invokeExact(target, args);
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        private boolean isApplicable(Object[] args) {
+            if (args.length != parameterTypes.length) {
+                return false;
+            }
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] == null ? parameterTypes[i].isPrimitive()
+                        : !wrapperTypes[i].isInstance(args[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
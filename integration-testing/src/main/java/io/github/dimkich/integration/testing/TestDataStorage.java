@@ -61,8 +61,8 @@ public interface TestDataStorage {
      * differences should override this method.
      * </p>
      *
-     * @param diff a map representing the differences detected, or {@code null} if
-     *             no differences were found or when resetting the difference state
+     * @param diff a map of changed keys of this storage to their new values ({@code null} for deleted keys),
+     *             an empty map if nothing changed, or {@code null} if changed keys are unknown
      */
     default void setDiff(Map<String, Object> diff) {
     }
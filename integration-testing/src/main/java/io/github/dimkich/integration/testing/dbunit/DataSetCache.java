@@ -0,0 +1,178 @@
+package io.github.dimkich.integration.testing.dbunit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dbunit.dataset.*;
+import org.dbunit.dataset.datatype.DataType;
+import org.springframework.core.io.Resource;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of datasets read from {@link HumanReadableXmlDataSet} files, keyed by the SHA-256
+ * checksum of the file content. At most {@value #MAX_SIZE} datasets are kept in memory, least recently used
+ * datasets are evicted first.
+ * <p>
+ * If a directory is set, parsed datasets are also compiled into a compact binary form stored there.
+ * The binary form keeps values column by column, so subsequent runs do not parse the XML again.
+ * Compiled datasets are read into memory as a whole.
+ */
+@Slf4j
+public class DataSetCache {
+    private static final int MAGIC = 0x44534331;
+    private static final int MAX_SIZE = 256;
+    private static final Map<String, IDataSet> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IDataSet> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+    private static volatile Path directory;
+
+    /**
+     * Sets the directory where compiled datasets are stored.
+     *
+     * @param directory directory for compiled datasets, or {@code null} to keep datasets in memory only
+     */
+    public static void setDirectory(Path directory) {
+        DataSetCache.directory = directory;
+    }
+
+    /**
+     * Returns the dataset of the given human-readable XML resource.
+     *
+     * @param resource XML dataset resource
+     * @return read-only dataset
+     * @throws IOException      if the resource cannot be read
+     * @throws DataSetException if the XML cannot be parsed
+     */
+    public static IDataSet get(Resource resource) throws IOException, DataSetException {
+        byte[] content;
+        try (InputStream in = resource.getInputStream()) {
+            content = in.readAllBytes();
+        }
+        String checksum = checksum(content);
+        IDataSet dataSet;
+        synchronized (cache) {
+            dataSet = cache.get(checksum);
+        }
+        if (dataSet != null) {
+            return dataSet;
+        }
+        Path dir = directory;
+        Path file = dir == null ? null : dir.resolve(checksum + ".dataset");
+        if (file != null && Files.isRegularFile(file)) {
+            try {
+                dataSet = read(file);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to read compiled dataset {}", file, e);
+            }
+        }
+        if (dataSet == null) {
+            dataSet = new HumanReadableXmlDataSet(new ByteArrayInputStream(content));
+            if (file != null) {
+                write(file, dataSet);
+            }
+        }
+        synchronized (cache) {
+            cache.put(checksum, dataSet);
+        }
+        return dataSet;
+    }
+
+    private static String checksum(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static IDataSet read(Path file) throws IOException, DataSetException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unknown compiled dataset format");
+            }
+            int tableCount = in.readInt();
+            ITable[] tables = new ITable[tableCount];
+            for (int t = 0; t < tableCount; t++) {
+                String tableName = readString(in);
+                Column[] columns = new Column[in.readInt()];
+                for (int c = 0; c < columns.length; c++) {
+                    columns[c] = new Column(readString(in), DataType.UNKNOWN);
+                }
+                Object[][] rows = new Object[in.readInt()][columns.length];
+                for (int c = 0; c < columns.length; c++) {
+                    for (Object[] row : rows) {
+                        row[c] = readString(in);
+                    }
+                }
+                DefaultTable table = new DefaultTable(new DefaultTableMetaData(tableName, columns));
+                for (Object[] row : rows) {
+                    table.addRow(row);
+                }
+                tables[t] = table;
+            }
+            return new DefaultDataSet(tables);
+        }
+    }
+
+    static void write(Path file, IDataSet dataSet) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                String[] tableNames = dataSet.getTableNames();
+                out.writeInt(MAGIC);
+                out.writeInt(tableNames.length);
+                for (String tableName : tableNames) {
+                    ITable table = dataSet.getTable(tableName);
+                    Column[] columns = table.getTableMetaData().getColumns();
+                    writeString(out, table.getTableMetaData().getTableName());
+                    out.writeInt(columns.length);
+                    for (Column column : columns) {
+                        writeString(out, column.getColumnName());
+                    }
+                    out.writeInt(table.getRowCount());
+                    for (Column column : columns) {
+                        for (int row = 0; row < table.getRowCount(); row++) {
+                            Object value = table.getValue(row, column.getColumnName());
+                            writeString(out, value == null ? null : value.toString());
+                        }
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | DataSetException | RuntimeException e) {
+            log.debug("Failed to write compiled dataset {}", file, e);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,180 @@
+package io.github.dimkich.integration.testing.execution;
+
+import eu.ciechanowiec.sneakyfun.SneakyRunnable;
+import eu.ciechanowiec.sneakyfun.SneakySupplier;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe state of mock interception.
+ * <p>
+ * Interception is enabled while at least one {@link #enable(SneakySupplier)} or {@link #enable(SneakyRunnable)}
+ * scope is active on any thread, so calls made by application threads and pools during a test are intercepted.
+ * Scopes may be nested and opened concurrently. The scope is process-wide, not bound to a test, since
+ * application threads cannot be attributed to a test, so tests using mocks cannot run in parallel.
+ * <p>
+ * The chain of mock answers which are currently calling real methods is kept per thread in an
+ * {@link InheritableThreadLocal}, so it is inherited by platform and virtual threads started inside
+ * a real method call. A context becomes inactive when its real method call completes, so pooled threads
+ * started inside the call do not treat later tasks as nested. Tasks of pools started before the call get
+ * the context with {@link #wrap(Callable)}, {@link #wrap(Runnable)} and {@link #wrap(Executor)}.
+ */
+public final class InterceptionContext {
+    private static final AtomicInteger activeScopes = new AtomicInteger();
+    private static final InheritableThreadLocal<InterceptionContext> current = new InheritableThreadLocal<>();
+
+    private final InterceptionContext parent;
+    private final Object answer;
+    private volatile boolean active = true;
+
+    private InterceptionContext(InterceptionContext parent, Object answer) {
+        this.parent = parent;
+        this.answer = answer;
+    }
+
+    /**
+     * Checks whether interception is enabled.
+     *
+     * @return {@code true} if any interception scope is active
+     */
+    public static boolean isEnabled() {
+        return activeScopes.get() > 0;
+    }
+
+    /**
+     * Executes the supplied code with interception enabled.
+     *
+     * @param supplier code to execute while interception is enabled
+     * @param <T>      result type
+     * @param <E>      checked exception type that the supplier may throw
+     * @return value returned by the supplied code
+     * @throws E any exception thrown by the supplier
+     */
+    public static <T, E extends Exception> T enable(SneakySupplier<T, E> supplier) throws E {
+        activeScopes.incrementAndGet();
+        try {
+            return supplier.get();
+        } finally {
+            activeScopes.decrementAndGet();
+        }
+    }
+
+    /**
+     * Executes the given runnable with interception enabled.
+     *
+     * @param runnable code to execute while interception is enabled
+     * @param <E>      checked exception type that the runnable may throw
+     * @throws E any exception thrown by the runnable
+     */
+    public static <E extends Exception> void enable(SneakyRunnable<E> runnable) throws E {
+        activeScopes.incrementAndGet();
+        try {
+            runnable.run();
+        } finally {
+            activeScopes.decrementAndGet();
+        }
+    }
+
+    /**
+     * Checks whether the given answer is calling a real method in the current thread, in the thread
+     * which started the current thread, or in the thread which submitted the current wrapped task.
+     *
+     * @param answer mock answer
+     * @return {@code true} if the call is nested into an active real method call of the answer
+     */
+    public static boolean isNested(Object answer) {
+        for (InterceptionContext context = current.get(); context != null; context = context.parent) {
+            if (context.active && context.answer == answer) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the current thread as calling a real method of the given answer. The returned context
+     * must be passed to {@link #exitNested(InterceptionContext)} when the call completes.
+     *
+     * @param answer mock answer
+     * @return previous context of the current thread
+     */
+    public static InterceptionContext enterNested(Object answer) {
+        InterceptionContext previous = current.get();
+        current.set(new InterceptionContext(previous, answer));
+        return previous;
+    }
+
+    /**
+     * Completes the real method call started by {@link #enterNested(Object)}: deactivates its context,
+     * also in threads which inherited it, and restores the previous context of the current thread.
+     *
+     * @param previous previous context returned by {@link #enterNested(Object)}
+     */
+    public static void exitNested(InterceptionContext previous) {
+        InterceptionContext context = current.get();
+        if (context != null && context != previous) {
+            context.active = false;
+        }
+        restore(previous);
+    }
+
+    private static void restore(InterceptionContext previous) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Wraps a task so that it runs with the context of the current thread.
+     *
+     * @param callable task
+     * @param <T>      result type
+     * @return task which restores the context of the current thread while running
+     */
+    public static <T> Callable<T> wrap(Callable<T> callable) {
+        InterceptionContext context = current.get();
+        return () -> {
+            InterceptionContext previous = current.get();
+            restore(context);
+            try {
+                return callable.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps a task so that it runs with the context of the current thread.
+     *
+     * @param runnable task
+     * @return task which restores the context of the current thread while running
+     */
+    public static Runnable wrap(Runnable runnable) {
+        InterceptionContext context = current.get();
+        return () -> {
+            InterceptionContext previous = current.get();
+            restore(context);
+            try {
+                runnable.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Wraps an executor, for example an application executor created before the test, so that its tasks
+     * run with the context of the thread which submits them.
+     *
+     * @param executor executor
+     * @return executor which wraps submitted tasks with {@link #wrap(Runnable)}
+     */
+    public static Executor wrap(Executor executor) {
+        return task -> executor.execute(wrap(task));
+    }
+}
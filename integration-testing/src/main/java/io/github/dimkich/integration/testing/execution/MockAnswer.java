@@ -1,10 +1,8 @@
-
 package io.github.dimkich.integration.testing.execution;
 
 import eu.ciechanowiec.sneakyfun.SneakyRunnable;
 import eu.ciechanowiec.sneakyfun.SneakySupplier;
 import io.github.sugarcubes.cloner.Cloner;
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.mockito.Answers;
 import org.mockito.Mockito;
@@ -14,24 +12,18 @@ import org.mockito.stubbing.Answer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Mockito {@link Answer} implementation used by integration-testing to intercept method invocations,
  * record {@link MockInvoke} metadata and optionally call real methods or return mocked results.
  * <p>
- * Interception is globally controlled by the static {@link #enabled} flag which is switched on only
+ * Interception is controlled by {@link InterceptionContext} and is switched on only
  * within the {@link #enable(SneakySupplier)} and {@link #enable(SneakyRunnable)} scopes.
  * Outside of these scopes the answer delegates directly to {@link InvocationOnMock#callRealMethod()}.
  */
 @RequiredArgsConstructor
 public class MockAnswer implements Answer<Object> {
-    /**
-     * Global flag that enables interception when {@code true}.
-     * It is managed only by {@link #enable(SneakySupplier)} and {@link #enable(SneakyRunnable)}.
-     */
-    @Getter
-    private static boolean enabled = false;
-
     private final String name;
     private final Set<String> methods;
     private final MockInvokeProperties properties;
@@ -41,14 +33,22 @@ public class MockAnswer implements Answer<Object> {
     private final boolean cloneArgsAndResult;
 
     /**
-     * Counter for nested calls to avoid recording internal recursive invocations.
+     * Counter of real method calls in progress on any thread. Calls made by threads which the real method
+     * uses without inheriting its {@link InterceptionContext}, for example pooled ones, are not recorded either.
+     */
+    private final AtomicInteger nestedCalls = new AtomicInteger();
+
+    /**
+     * Returns whether interception is enabled.
+     *
+     * @return {@code true} inside {@link #enable(SneakySupplier)} and {@link #enable(SneakyRunnable)} scopes
      */
-    private int nestedCalls = 0;
+    public static boolean isEnabled() {
+        return InterceptionContext.isEnabled();
+    }
 
     /**
-     * Executes the supplied code with interception globally enabled.
-     * <p>
-     * The {@link #enabled} flag is always reset back to {@code false} after execution.
+     * Executes the supplied code with interception enabled.
      *
      * @param supplier code to execute while interception is enabled
      * @param <T>      result type
@@ -57,30 +57,18 @@ public class MockAnswer implements Answer<Object> {
      * @throws E any exception thrown by the supplier
      */
     public static <T, E extends Exception> T enable(SneakySupplier<T, E> supplier) throws E {
-        enabled = true;
-        try {
-            return supplier.get();
-        } finally {
-            enabled = false;
-        }
+        return InterceptionContext.enable(supplier);
     }
 
     /**
-     * Executes the given runnable with interception globally enabled.
-     * <p>
-     * The {@link #enabled} flag is always reset back to {@code false} after execution.
+     * Executes the given runnable with interception enabled.
      *
      * @param runnable code to execute while interception is enabled
      * @param <E>      checked exception type that the runnable may throw
      * @throws E any exception thrown by the runnable
      */
     public static <E extends Exception> void enable(SneakyRunnable<E> runnable) throws E {
-        enabled = true;
-        try {
-            runnable.run();
-        } finally {
-            enabled = false;
-        }
+        InterceptionContext.enable(runnable);
     }
 
     /**
@@ -93,7 +81,7 @@ public class MockAnswer implements Answer<Object> {
      */
     @Override
     public Object answer(InvocationOnMock invocation) throws Throwable {
-        if (!enabled || methods != null && !methods.contains(invocation.getMethod().getName())) {
+        if (!InterceptionContext.isEnabled() || methods != null && !methods.contains(invocation.getMethod().getName())) {
             return invocation.callRealMethod();
         }
         List<Object> args = Arrays.stream(invocation.getArguments()).toList();
@@ -104,6 +92,9 @@ public class MockAnswer implements Answer<Object> {
         }
 
         boolean mockInvokeFound = mi != null;
+        if (mi == null && testExecutor.isRecordBuffered() && addMockInvoke(false) && callRealMethod(false)) {
+            return recordBuffered(invocation);
+        }
         if (mi == null) {
             mi = new MockInvoke().setName(name).setMethod(invocation.getMethod().getName()).setArg(args);
         }
@@ -114,14 +105,16 @@ public class MockAnswer implements Answer<Object> {
             testExecutor.addMockInvoke(mi);
         }
         if (callRealMethod(mockInvokeFound)) {
-            nestedCalls++;
+            nestedCalls.incrementAndGet();
+            InterceptionContext previous = InterceptionContext.enterNested(this);
             try {
                 Object result = invocation.callRealMethod();
                 mi.addResult(result);
             } catch (Throwable e) {
                 mi.addException(e);
             } finally {
-                nestedCalls--;
+                InterceptionContext.exitNested(previous);
+                nestedCalls.decrementAndGet();
             }
         }
         mi.tryThrowException();
@@ -135,13 +128,39 @@ public class MockAnswer implements Answer<Object> {
         return cloneArgsAndResult ? cloner.clone(mi.getCurrentResult()) : mi.getCurrentResult();
     }
 
+    private Object recordBuffered(InvocationOnMock invocation) throws Throwable {
+        Object[] recordedArgs = invocation.getArguments();
+        if (recordedArgs.length == 0) {
+            recordedArgs = null;
+        } else if (cloneArgsAndResult) {
+            recordedArgs = Arrays.stream(recordedArgs).map(cloner::clone).toArray();
+        }
+        Object result = null;
+        Throwable error = null;
+        nestedCalls.incrementAndGet();
+        InterceptionContext previous = InterceptionContext.enterNested(this);
+        try {
+            result = invocation.callRealMethod();
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            InterceptionContext.exitNested(previous);
+            nestedCalls.decrementAndGet();
+        }
+        testExecutor.recordMockInvoke(name, invocation.getMethod().getName(), recordedArgs, result, error);
+        if (error != null) {
+            throw error;
+        }
+        return cloneArgsAndResult ? cloner.clone(result) : result;
+    }
+
     private boolean callRealMethod(boolean mockInvokeFound) {
         return (isSpy && !mockInvokeFound) || properties.isMockAlwaysCallRealMethods()
                 || properties.isMockCallRealMethodsOnNoData() && !mockInvokeFound;
     }
 
     private boolean addMockInvoke(boolean mockInvokeFound) {
-        return nestedCalls == 0 && (!mockInvokeFound || properties.isMockAlwaysCallRealMethods())
+        return nestedCalls.get() == 0 && !InterceptionContext.isNested(this) && (!mockInvokeFound || properties.isMockAlwaysCallRealMethods())
                 && (!isSpy || properties.isSpyCreateData());
     }
 
@@ -3,16 +3,13 @@ package io.github.dimkich.integration.testing.execution;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import io.github.dimkich.integration.testing.util.EqualsRegistry;
 import lombok.Data;
-import lombok.SneakyThrows;
 import lombok.experimental.Accessors;
-import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
-import org.assertj.core.api.recursive.comparison.RecursiveComparisonDifferenceCalculator;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicMarkableReference;
 import java.util.function.BiPredicate;
 
 /**
@@ -20,21 +17,12 @@ import java.util.function.BiPredicate;
  * <p>
  * The instance holds a method name, arguments and a sequence of {@link MockInvokeResult}
  * objects that should be returned or thrown on subsequent invocations. Arguments are
- * compared using AssertJ's recursive comparison, with the possibility to register
+ * compared with the per-class strategies of {@link EqualsRegistry}, with the possibility to register
  * custom equality implementations for specific types.
  */
 @Data
 @Accessors(chain = true)
 public class MockInvoke {
-    private static final RecursiveComparisonDifferenceCalculator compCalculator =
-            new RecursiveComparisonDifferenceCalculator();
-    private static final RecursiveComparisonConfiguration compConfig = new RecursiveComparisonConfiguration();
-
-    static {
-        compConfig.registerEqualsForType((amr1, amr2) -> compCalculator.determineDifferences(amr1.getReference(),
-                amr2.getReference(), compConfig).isEmpty(), AtomicMarkableReference.class);
-    }
-
     /**
      * Mock name. Usually corresponds to a bean or component name.
      */
@@ -65,14 +53,13 @@ public class MockInvoke {
 
     /**
      * Registers a custom equality predicate for the given type that will be used
-     * by the recursive comparison when comparing arguments.
+     * when comparing arguments and storage values.
      *
      * @param type   class for which the predicate should be applied
      * @param equals bi-predicate that returns {@code true} when values are equal
      */
-    @SuppressWarnings("unchecked")
     public static void addEqualsForType(Class<?> type, BiPredicate<?, ?> equals) {
-        compConfig.registerEqualsForType((BiPredicate<Object, Object>) equals, (Class<Object>) type);
+        EqualsRegistry.addEqualsForType(type, equals);
     }
 
     /**
@@ -80,7 +67,7 @@ public class MockInvoke {
      *
      * @param result value that should be returned on invocation
      */
-    public void addResult(Object result) {
+    public synchronized void addResult(Object result) {
         if (this.result == null) {
             this.result = new ArrayList<>();
         }
@@ -92,7 +79,7 @@ public class MockInvoke {
      *
      * @param e exception that should be thrown on invocation
      */
-    public void addException(Throwable e) {
+    public synchronized void addException(Throwable e) {
         if (this.result == null) {
             this.result = new ArrayList<>();
         }
@@ -104,7 +91,7 @@ public class MockInvoke {
      * Resets the internal result index so that subsequent invocations start
      * from the first configured {@link MockInvokeResult}.
      */
-    public void reset() {
+    public synchronized void reset() {
         resultIndex = 0;
     }
 
@@ -116,7 +103,7 @@ public class MockInvoke {
      *
      * @return current result value or {@code null} if none
      */
-    public Object getCurrentResult() {
+    public synchronized Object getCurrentResult() {
         if (this.result == null) {
             return null;
         }
@@ -132,7 +119,7 @@ public class MockInvoke {
      *
      * @throws Throwable when the current result is configured with an exception
      */
-    public void tryThrowException() throws Throwable {
+    public synchronized void tryThrowException() throws Throwable {
         if (this.result == null) {
             return;
         }
@@ -143,14 +130,12 @@ public class MockInvoke {
         }
     }
 
-    @SneakyThrows
     /**
      * Checks whether this mock configuration matches the supplied name, method and arguments.
      * <ul>
      *     <li>Names and methods are compared using {@link Objects#equals(Object, Object)}.</li>
      *     <li>If {@link #disabled} is {@code true}, arguments are ignored.</li>
-     *     <li>If enabled, arguments are compared pairwise using recursive comparison
-     *     (with registered custom equals predicates) or direct {@code equals} where applicable.</li>
+     *     <li>If enabled, arguments are compared pairwise with {@link EqualsRegistry#isEquals(Object, Object)}.</li>
      * </ul>
      *
      * @param name   mock name
@@ -172,20 +157,10 @@ public class MockInvoke {
             return false;
         }
         for (int i = 0; i < this.arg.size(); i++) {
-            if (!isEquals(this.arg.get(i), arg.get(i))) {
+            if (!EqualsRegistry.isEquals(this.arg.get(i), arg.get(i))) {
                 return false;
             }
         }
         return true;
     }
-
-    private boolean isEquals(Object o1, Object o2) throws NoSuchMethodException {
-        if (o1 == null || o2 == null) {
-            return o1 == o2;
-        }
-        if (o1.getClass() == o1.getClass().getMethod("equals", Object.class).getDeclaringClass()) {
-            return Objects.equals(o1, o2);
-        }
-        return compCalculator.determineDifferences(o1, o2, compConfig).isEmpty();
-    }
 }
@@ -0,0 +1,153 @@
+package io.github.dimkich.integration.testing.execution;
+
+import io.github.dimkich.integration.testing.util.EqualsRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the {@link MockInvoke} list of one test, which finds the first invocation matching a call
+ * without comparing arguments of every invocation.
+ * <p>
+ * Invocations are grouped by mock name and method. Within a group, invocations are put into buckets by
+ * a fingerprint of the arguments that are compared with plain {@code equals}: {@code null}s, strings,
+ * boxed primitives and enums. Other arguments do not affect the fingerprint, so invocations of a bucket are
+ * still checked with {@link MockInvoke#equalsTo}. Disabled invocations and invocations without arguments
+ * are checked on every search.
+ * <p>
+ * Invocations appended to the list after the index was created are indexed on the next search.
+ */
+public class MockInvokeIndex {
+    private static final int MAX_INDEXED_ARGS = 32;
+
+    private final List<MockInvoke> mockInvokes;
+    private final Map<String, Map<String, Group>> groups = new HashMap<>();
+    private int indexedSize;
+
+    /**
+     * Creates an index of the given list.
+     *
+     * @param mockInvokes mock invocations of a test
+     */
+    public MockInvokeIndex(List<MockInvoke> mockInvokes) {
+        this.mockInvokes = mockInvokes;
+        update();
+    }
+
+    /**
+     * Checks whether this index can be used for the given list, i.e. the list is the indexed one
+     * and its items were only appended since.
+     *
+     * @param mockInvokes mock invocations of a test
+     * @return {@code true} if this index is up-to-date or can be updated incrementally
+     */
+    public boolean isIndexOf(List<MockInvoke> mockInvokes) {
+        return this.mockInvokes == mockInvokes && mockInvokes.size() >= indexedSize;
+    }
+
+    /**
+     * Returns the first mock invocation in list order which matches the supplied name, method and arguments.
+     *
+     * @param name   mock name
+     * @param method method name
+     * @param args   actual arguments of the invocation
+     * @return matching mock invocation or {@code null} if none
+     */
+    public MockInvoke search(String name, String method, List<Object> args) {
+        update();
+        Map<String, Group> methods = groups.get(name);
+        Group group = methods == null ? null : methods.get(method);
+        return group == null ? null : group.search(name, method, args);
+    }
+
+    private void update() {
+        for (; indexedSize < mockInvokes.size(); indexedSize++) {
+            MockInvoke mockInvoke = mockInvokes.get(indexedSize);
+            groups.computeIfAbsent(mockInvoke.getName(), n -> new HashMap<>())
+                    .computeIfAbsent(mockInvoke.getMethod(), m -> new Group())
+                    .add(new Entry(indexedSize, mockInvoke));
+        }
+    }
+
+    private static boolean isValue(Object arg) {
+        if (arg == null) {
+            return true;
+        }
+        boolean value = arg instanceof String || arg instanceof Integer || arg instanceof Long
+                || arg instanceof Short || arg instanceof Byte || arg instanceof Double || arg instanceof Float
+                || arg instanceof Boolean || arg instanceof Character || arg instanceof Enum<?>;
+        return value && !EqualsRegistry.hasEqualsForType(arg.getClass());
+    }
+
+    private static long fingerprint(List<Object> args, long mask) {
+        long hash = 1;
+        for (int i = 0; i < args.size(); i++) {
+            if ((mask & (1L << i)) != 0) {
+                Object arg = args.get(i);
+                hash = hash * 31 + (arg == null ? 0 : arg.getClass().hashCode() * 31L + arg.hashCode());
+            }
+        }
+        return hash;
+    }
+
+    private static class Entry {
+        private final int position;
+        private final MockInvoke mockInvoke;
+
+        Entry(int position, MockInvoke mockInvoke) {
+            this.position = position;
+            this.mockInvoke = mockInvoke;
+        }
+    }
+
+    private static class Group {
+        private final Map<Integer, Map<Long, Map<Long, List<Entry>>>> shapes = new HashMap<>();
+        private final List<Entry> unindexed = new ArrayList<>();
+
+        void add(Entry entry) {
+            List<Object> args = entry.mockInvoke.getArg();
+            if (entry.mockInvoke.isDisabled() || args == null || args.size() > MAX_INDEXED_ARGS) {
+                unindexed.add(entry);
+                return;
+            }
+            long mask = 0;
+            for (int i = 0; i < args.size(); i++) {
+                if (isValue(args.get(i))) {
+                    mask |= 1L << i;
+                }
+            }
+            shapes.computeIfAbsent(args.size(), s -> new HashMap<>())
+                    .computeIfAbsent(mask, m -> new HashMap<>())
+                    .computeIfAbsent(fingerprint(args, mask), f -> new ArrayList<>())
+                    .add(entry);
+        }
+
+        MockInvoke search(String name, String method, List<Object> args) {
+            Entry found = null;
+            if (args != null) {
+                for (Map.Entry<Long, Map<Long, List<Entry>>> shape : shapes.getOrDefault(args.size(), Map.of()).entrySet()) {
+                    found = first(shape.getValue().get(fingerprint(args, shape.getKey())), found, name, method, args);
+                }
+            }
+            found = first(unindexed, found, name, method, args);
+            return found == null ? null : found.mockInvoke;
+        }
+
+        private Entry first(List<Entry> entries, Entry found, String name, String method, List<Object> args) {
+            if (entries == null) {
+                return found;
+            }
+            for (Entry entry : entries) {
+                if (found != null && entry.position > found.position) {
+                    break;
+                }
+                if (entry.mockInvoke.equalsTo(name, method, args)) {
+                    return entry;
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -35,4 +35,27 @@ public class MockInvokeProperties {
      * spy is used.
      */
     private boolean spyCreateData;
+
+    /**
+     * If {@code true}, invocations recorded by mocks and spies are written into a preallocated buffer and
+     * converted into {@link MockInvoke} objects only before the test result is asserted.
+     * Invocations buffered during a test are not replayed within the same test.
+     */
+    private boolean recordBuffered;
+
+    /**
+     * Number of invocations the recording buffer holds before it is flushed into the test.
+     */
+    private int recordBufferSize = 1024;
+
+    /**
+     * If {@code true}, identical buffered invocations (same mock, method and arguments) are merged into one
+     * {@link MockInvoke}. A result is appended unless all results recorded for the invocation are equal to it.
+     */
+    private boolean recordDeduplicate;
+
+    /**
+     * Maximum number of invocations buffered per test, further invocations are dropped. {@code 0} means no limit.
+     */
+    private int recordMaxInvokes;
 }
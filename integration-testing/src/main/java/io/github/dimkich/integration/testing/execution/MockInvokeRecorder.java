@@ -0,0 +1,159 @@
+package io.github.dimkich.integration.testing.execution;
+
+import io.github.dimkich.integration.testing.Test;
+import io.github.dimkich.integration.testing.util.EqualsRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Buffer of invocations recorded by mocks and spies, used when
+ * {@link MockInvokeProperties#isRecordBuffered()} is enabled.
+ * <p>
+ * Invocations are written into preallocated parallel arrays and converted into {@link MockInvoke} objects of
+ * the test only when the buffer is flushed: before the test result is asserted, after the test, or when
+ * the buffer is full. On conversion, identical invocations may be merged and invocations over the configured
+ * limit are dropped.
+ * <p>
+ * Invocations are written under the lock of the recorder, so recording threads do not contend with
+ * searches of {@link TestExecutor}. Buffered invocations are taken out under the same lock on flush, and
+ * are converted outside of it, while the caller synchronizes access to the mock invocations of the test.
+ */
+@Slf4j
+class MockInvokeRecorder {
+    private final boolean deduplicate;
+    private final int maxInvokes;
+    private final String[] names;
+    private final String[] methods;
+    private final Object[][] args;
+    private final Object[] results;
+    private final Throwable[] errors;
+    private int size;
+    private int recorded;
+    private int dropped;
+
+    MockInvokeRecorder(MockInvokeProperties properties) {
+        int capacity = Math.max(1, properties.getRecordBufferSize());
+        deduplicate = properties.isRecordDeduplicate();
+        maxInvokes = properties.getRecordMaxInvokes();
+        names = new String[capacity];
+        methods = new String[capacity];
+        args = new Object[capacity][];
+        results = new Object[capacity];
+        errors = new Throwable[capacity];
+    }
+
+    /**
+     * Writes an invocation into the buffer.
+     *
+     * @param name   mock name
+     * @param method method name
+     * @param arg    invocation arguments, or {@code null} if there are none
+     * @param result returned value
+     * @param error  thrown exception, or {@code null} if the method returned normally
+     * @return {@code false} if the buffer is full and must be flushed before recording the invocation
+     */
+    synchronized boolean record(String name, String method, Object[] arg, Object result, Throwable error) {
+        if (maxInvokes > 0 && recorded >= maxInvokes) {
+            dropped++;
+            return true;
+        }
+        if (size == names.length) {
+            return false;
+        }
+        recorded++;
+        names[size] = name;
+        methods[size] = method;
+        args[size] = arg;
+        results[size] = result;
+        errors[size] = error;
+        size++;
+        return true;
+    }
+
+    /**
+     * Converts buffered invocations into {@link MockInvoke} objects of the test and clears the buffer.
+     *
+     * @param test test which receives the invocations
+     */
+    void flush(Test test) {
+        String[] names;
+        String[] methods;
+        Object[][] args;
+        Object[] results;
+        Throwable[] errors;
+        int dropped;
+        synchronized (this) {
+            names = Arrays.copyOf(this.names, size);
+            methods = Arrays.copyOf(this.methods, size);
+            args = Arrays.copyOf(this.args, size);
+            results = Arrays.copyOf(this.results, size);
+            errors = Arrays.copyOf(this.errors, size);
+            Arrays.fill(this.names, 0, size, null);
+            Arrays.fill(this.methods, 0, size, null);
+            Arrays.fill(this.args, 0, size, null);
+            Arrays.fill(this.results, 0, size, null);
+            Arrays.fill(this.errors, 0, size, null);
+            size = 0;
+            dropped = this.dropped;
+            this.dropped = 0;
+        }
+        for (int i = 0; i < names.length; i++) {
+            materialize(test, names[i], methods[i], args[i] == null ? null : Arrays.asList(args[i]), results[i],
+                    errors[i]);
+        }
+        if (dropped > 0) {
+            log.warn("{} invocations were not recorded in test {}, the limit is {}", dropped, test.getFullName(),
+                    maxInvokes);
+        }
+    }
+
+    /**
+     * Resets the per-test limit counter.
+     */
+    synchronized void reset() {
+        recorded = 0;
+        dropped = 0;
+    }
+
+    private void materialize(Test test, String name, String method, List<Object> arg, Object result,
+                             Throwable error) {
+        if (deduplicate) {
+            MockInvoke mockInvoke = test.search(name, method, arg);
+            if (mockInvoke != null && !mockInvoke.isDisabled()) {
+                if (!isRepeated(mockInvoke.getResult(), result, error)) {
+                    addResult(mockInvoke, result, error);
+                }
+                return;
+            }
+        }
+        MockInvoke mockInvoke = new MockInvoke().setName(name).setMethod(method).setArg(arg);
+        addResult(mockInvoke, result, error);
+        test.getMockInvoke().add(mockInvoke);
+    }
+
+    private boolean isRepeated(List<MockInvokeResult> previous, Object result, Throwable error) {
+        if (previous == null || previous.isEmpty()) {
+            return false;
+        }
+        for (MockInvokeResult r : previous) {
+            boolean same = error == null ? r.getThrow1() == null && EqualsRegistry.isEquals(r.getReturn1(), result)
+                    : r.getThrow1() != null && r.getThrow1().getClass() == error.getClass()
+                    && Objects.equals(r.getThrow1().getMessage(), error.getMessage());
+            if (!same) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addResult(MockInvoke mockInvoke, Object result, Throwable error) {
+        if (error == null) {
+            mockInvoke.addResult(result);
+        } else {
+            mockInvoke.addException(error);
+        }
+    }
+}
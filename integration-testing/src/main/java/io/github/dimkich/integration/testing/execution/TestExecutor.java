@@ -94,6 +94,10 @@ public class TestExecutor {
      * Cloner for deep copying test results to avoid side effects.
      */
     private final Cloner cloner;
+    /**
+     * Properties controlling how mock invocations are recorded.
+     */
+    private final MockInvokeProperties mockInvokeProperties;
     /**
      * Service for initializing and cleaning up test state before and after tests.
      */
@@ -131,6 +135,10 @@ public class TestExecutor {
     @Getter
     @Setter
     private Test lastTest;
+    /**
+     * Buffer of recorded mock invocations, created when buffered recording is enabled.
+     */
+    private volatile MockInvokeRecorder recorder;
 
     /**
      * Prepares the test for execution by initializing the test state and executing
@@ -164,6 +172,7 @@ public class TestExecutor {
             return;
         }
         assertion.setExpected(test);
+        resetRecorder();
         test.setResponse(null);
         test.setDataStorageDiff(null);
         test.setOutboundMessages(null);
@@ -261,6 +270,7 @@ public class TestExecutor {
         if (testDataStorages != null) {
             test.setDataStorageDiff(testDataStorages.getMapDiff());
         }
+        flushRecordedMockInvokes();
         testConverters.forEach(c -> c.convertNoException(test));
 
         assertion.assertTestsEquals(test);
@@ -284,7 +294,9 @@ public class TestExecutor {
      */
     public void after() throws Exception {
         try {
+            flushRecordedMockInvokes();
             test.after(this::afterConsumer, lastTest);
+            flushRecordedMockInvokes();
             if (test.getCalculatedDisabled()) {
                 Assumptions.abort();
             }
@@ -324,12 +336,14 @@ public class TestExecutor {
      * @param args     the list of arguments to match against the mock invocation
      * @return the matching MockInvoke if found, or null if no match is found
      */
-    public MockInvoke search(String mockName, String method, List<Object> args) {
-        return test.getParentsAndItselfDesc()
-                .map(tc -> tc.search(mockName, method, args))
-                .filter(Objects::nonNull)
-                .findFirst()
-                .orElse(null);
+    public synchronized MockInvoke search(String mockName, String method, List<Object> args) {
+        for (Test tc : test.getParentsAndItselfDescList()) {
+            MockInvoke mockInvoke = tc.search(mockName, method, args);
+            if (mockInvoke != null) {
+                return mockInvoke;
+            }
+        }
+        return null;
     }
 
     /**
@@ -340,7 +354,57 @@ public class TestExecutor {
      *
      * @param invoke the mock invocation to add to the current test
      */
-    public void addMockInvoke(MockInvoke invoke) {
+    public synchronized void addMockInvoke(MockInvoke invoke) {
         test.getMockInvoke().add(invoke);
     }
+
+    /**
+     * Returns whether mock invocations are recorded through the buffer of
+     * {@link #recordMockInvoke(String, String, Object[], Object, Throwable)}.
+     *
+     * @return {@code true} if buffered recording is enabled
+     */
+    public boolean isRecordBuffered() {
+        return mockInvokeProperties.isRecordBuffered();
+    }
+
+    /**
+     * Records a mock invocation into the buffer. The invocation is added to the current test's mock invocation
+     * list when the buffer is flushed, at the latest before the test result is asserted.
+     *
+     * @param name   mock name
+     * @param method method name
+     * @param args   invocation arguments, or {@code null} if there are none
+     * @param result returned value
+     * @param error  thrown exception, or {@code null} if the method returned normally
+     */
+    public void recordMockInvoke(String name, String method, Object[] args, Object result, Throwable error) {
+        MockInvokeRecorder recorder = this.recorder;
+        if (recorder == null) {
+            recorder = createRecorder();
+        }
+        while (!recorder.record(name, method, args, result, error)) {
+            flushRecordedMockInvokes();
+        }
+    }
+
+    private synchronized MockInvokeRecorder createRecorder() {
+        if (recorder == null) {
+            recorder = new MockInvokeRecorder(mockInvokeProperties);
+        }
+        return recorder;
+    }
+
+    private synchronized void flushRecordedMockInvokes() {
+        if (recorder != null) {
+            recorder.flush(test);
+        }
+    }
+
+    private void resetRecorder() {
+        MockInvokeRecorder recorder = this.recorder;
+        if (recorder != null) {
+            recorder.reset();
+        }
+    }
 }
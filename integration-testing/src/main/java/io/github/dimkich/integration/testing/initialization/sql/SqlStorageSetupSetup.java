@@ -56,6 +56,7 @@ public class SqlStorageSetupSetup implements InitSetup<SqlStorageSetup, SqlStora
             SqlStorageSetupState.InitData oldData = oldState.getInitData(s);
             if (!newData.getSql().isEmpty() && (oldData == null || !oldData.getSql().equals(newData.getSql()))) {
                 log.debug("Slq setup '{}', sqls {}", s.getName(), newData.getSql());
+                s.dropCheckpoints();
                 s.executeSqls(newData.getSql());
                 testDataStorages.addAffectedStorage(s);
             }
@@ -3,38 +3,47 @@ package io.github.dimkich.integration.testing.storage;
 import io.github.dimkich.integration.testing.storage.mapping.Container;
 import io.github.dimkich.integration.testing.storage.pojo.PojoAccessorService;
 import io.github.dimkich.integration.testing.util.CollectionUtils;
+import io.github.dimkich.integration.testing.util.EqualsRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
-import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
-import org.assertj.core.api.recursive.comparison.RecursiveComparisonDifferenceCalculator;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.Collection;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class ObjectsDifference {
-    private static final RecursiveComparisonDifferenceCalculator compCalculator =
-            new RecursiveComparisonDifferenceCalculator();
-    private static final RecursiveComparisonConfiguration compConfig = new RecursiveComparisonConfiguration();
+    private static final Object EQUAL = new Object();
 
     private final StorageProperties properties;
     private final PojoAccessorService pojoAccessorService;
     private final Function<Object, Object> nonStringKeysConverter = Function.identity();
     private final Function<Object, Boolean> simpleTypeDetector = o -> BeanUtils.isSimpleValueType(o.getClass());
 
-    private String name;
-
     public Object getDifference(Object left, Object right) {
-        return diff(left, right, 0);
+        return diff(left, right, 0, null, null);
+    }
+
+    /**
+     * Computes the difference of two maps of storage values. Values of different keys are compared
+     * concurrently on the given executor, while entries of the result keep the sequential order.
+     *
+     * @param left     previous values by storage name
+     * @param right    current values by storage name
+     * @param executor executor for per-storage comparisons
+     * @return difference, or {@code null} if maps are equal
+     */
+    public Object getDifference(Map<String, ?> left, Map<String, ?> right, Executor executor) {
+        return diff(left, right, 0, null, executor);
     }
 
-    private Object diff(Object left, Object right, int level) {
+    private Object diff(Object left, Object right, int level, String name, Executor executor) {
         if (right == null) {
             return null;
         }
@@ -42,49 +51,107 @@ public class ObjectsDifference {
             return right;
         }
         if ((left == null || left instanceof Map<?, ?>) && right instanceof Map<?, ?>) {
-            return mapDiff(left == null ? Map.of() : (Map<?, ?>) left, (Map<?, ?>) right, level);
+            return mapDiff(left == null ? Map.of() : (Map<?, ?>) left, (Map<?, ?>) right, level, name, executor);
         }
         if ((left == null || left instanceof Collection<?>) && right instanceof Collection<?>) {
             return right;
         }
-        return left == null ? right : pojoDiff(left, right, level);
+        return left == null ? right : pojoDiff(left, right, level, name);
     }
 
-    private Object mapDiff(Map<?, ?> left, Map<?, ?> right, int level) {
+    private Object mapDiff(Map<?, ?> left, Map<?, ?> right, int level, String name, Executor executor) {
+        if (left instanceof SegmentedMap l && right instanceof SegmentedMap r) {
+            Set<String> changed = getChangedSegments(l, r);
+            left = l.getSegments(changed);
+            right = r.getSegments(changed);
+        }
+        Map<?, ?> leftMap = left;
+        Map<?, ?> rightMap = right;
+        Function<Object, Object> entryDiff = executor == null
+                ? key -> entryDiff(leftMap, rightMap, key, level, name)
+                : getEntryDiffs(leftMap, rightMap, level, name, executor)::get;
         Container container = Container.create(properties.getKeyType(name, level), properties.getValueType(name, level),
                 properties.getSort(name, level), properties.getChangeType(name, level));
-        CollectionUtils.setsDifference(right.keySet(), left.keySet()).forEach(key -> {
-            if (level == 0) {
-                name = convertKey(key);
-            }
-            container.addEntry(Container.ChangeType.added, key, diff(null, right.get(key), level + 1), this::convertKey);
-            if (level == 0) {
-                name = null;
-            }
-        });
-        CollectionUtils.setsIntersection(right.keySet(), left.keySet()).forEach(key -> {
-            Object leftValue = left.get(key);
-            Object rightValue = right.get(key);
-            if (!isEquals(leftValue, rightValue)) {
-                if (level == 0) {
-                    name = convertKey(key);
-                }
-                container.addEntry(Container.ChangeType.changed, key, diff(leftValue, rightValue, level + 1), this::convertKey);
-                if (level == 0) {
-                    name = null;
-                }
+        CollectionUtils.setsDifference(rightMap.keySet(), leftMap.keySet()).forEach(key ->
+                container.addEntry(Container.ChangeType.added, key, entryDiff.apply(key), this::convertKey)
+        );
+        CollectionUtils.setsIntersection(rightMap.keySet(), leftMap.keySet()).forEach(key -> {
+            Object diff = entryDiff.apply(key);
+            if (diff != EQUAL) {
+                container.addEntry(Container.ChangeType.changed, key, diff, this::convertKey);
             }
         });
-        CollectionUtils.setsDifference(left.keySet(), right.keySet()).forEach(key ->
+        CollectionUtils.setsDifference(leftMap.keySet(), rightMap.keySet()).forEach(key ->
                 container.addEntry(Container.ChangeType.deleted, key, null, this::convertKey)
         );
         return container.isEmpty() ? null : container;
     }
 
-    private Object pojoDiff(Object left, Object right, int level) {
+    private Object entryDiff(Map<?, ?> left, Map<?, ?> right, Object key, int level, String name) {
+        String entryName = level == 0 ? convertKey(key) : name;
+        Object rightValue = right.get(key);
+        if (!left.containsKey(key)) {
+            return diff(null, rightValue, level + 1, entryName, null);
+        }
+        Object leftValue = left.get(key);
+        return isEquals(leftValue, rightValue) ? EQUAL : diff(leftValue, rightValue, level + 1, entryName, null);
+    }
+
+    @SneakyThrows
+    private Map<Object, Object> getEntryDiffs(Map<?, ?> left, Map<?, ?> right, int level, String name,
+                                              Executor executor) {
+        Map<Object, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        for (Object key : right.keySet()) {
+            futures.put(key, CompletableFuture.supplyAsync(() -> entryDiff(left, right, key, level, name), executor));
+        }
+        Map<Object, Object> diffs = new HashMap<>();
+        try {
+            for (Map.Entry<Object, CompletableFuture<Object>> entry : futures.entrySet()) {
+                diffs.put(entry.getKey(), entry.getValue().join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+        return diffs;
+    }
+
+    /**
+     * Returns segments whose hashes differ. Segments with equal hashes are compared as a whole, since equal
+     * hashes do not guarantee equal values. Such comparison is cheap for segments shared by
+     * {@link SegmentedMap#shareSegments}.
+     */
+    private Set<String> getChangedSegments(SegmentedMap leftMap, SegmentedMap rightMap) {
+        Map<String, Long> left = leftMap.getSegmentHashes();
+        Map<String, Long> right = rightMap.getSegmentHashes();
+        Set<String> changed = new HashSet<>();
+        left.forEach((segment, hash) -> {
+            if (!hash.equals(right.get(segment))) {
+                changed.add(segment);
+            } else if (!leftMap.getSegments(Set.of(segment)).equals(rightMap.getSegments(Set.of(segment)))) {
+                changed.add(segment);
+            }
+        });
+        right.forEach((segment, hash) -> {
+            if (!hash.equals(left.get(segment))) {
+                changed.add(segment);
+            }
+        });
+        return changed;
+    }
+
+    private boolean isEquals(Object left, Object right) {
+        if (left instanceof StructuralHash l && right instanceof StructuralHash r && left.getClass() == right.getClass()) {
+            if (l.getStructuralHash() != r.getStructuralHash()) {
+                return false;
+            }
+        }
+        return EqualsRegistry.isEquals(left, right);
+    }
+
+    private Object pojoDiff(Object left, Object right, int level, String name) {
         Map<String, Object> leftMap = pojoAccessorService.forBean(left).asMap();
         Map<String, Object> rightMap = pojoAccessorService.forBean(right).asMap();
-        return mapDiff(leftMap, rightMap, level);
+        return mapDiff(leftMap, rightMap, level, name, null);
     }
 
     private String convertKey(Object key) {
@@ -103,15 +170,4 @@ public class ObjectsDifference {
         }
         return key.toString();
     }
-
-    @SneakyThrows
-    private boolean isEquals(Object o1, Object o2) {
-        if (o1 == null || o2 == null) {
-            return o1 == o2;
-        }
-        if (o1.getClass() == o1.getClass().getMethod("equals", Object.class).getDeclaringClass()) {
-            return Objects.equals(o1, o2);
-        }
-        return compCalculator.determineDifferences(o1, o2, compConfig).isEmpty();
-    }
 }
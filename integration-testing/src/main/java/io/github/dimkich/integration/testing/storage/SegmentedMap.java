@@ -0,0 +1,36 @@
+package io.github.dimkich.integration.testing.storage;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Captured map which consists of named segments with disjoint keys, for example the tables of an SQL storage.
+ * <p>
+ * Each segment has its own structural hash, so {@link ObjectsDifference} compares the keys of segments
+ * whose hashes differ, and compares other segments as a whole.
+ */
+public interface SegmentedMap extends Map<String, Object>, StructuralHash {
+    /**
+     * Returns structural hashes of the segments of this map.
+     *
+     * @return map of segment names to their hashes
+     */
+    Map<String, Long> getSegmentHashes();
+
+    /**
+     * Returns a map view of the given segments. Unknown segment names are ignored.
+     *
+     * @param segments segment names
+     * @return map with the keys of the given segments only
+     */
+    Map<String, Object> getSegments(Collection<String> segments);
+
+    /**
+     * Returns a map equal to this one which reuses the equal segments of the previous map,
+     * so unchanged segments are shared between subsequent captures.
+     *
+     * @param previous previously captured map
+     * @return this map, the previous map if all segments are equal, or a map combining segments of both
+     */
+    SegmentedMap shareSegments(SegmentedMap previous);
+}
@@ -1,15 +1,21 @@
 package io.github.dimkich.integration.testing.storage;
 
 import io.github.dimkich.integration.testing.TestDataStorage;
+import io.github.dimkich.integration.testing.dbunit.DataSetCache;
 import io.github.dimkich.integration.testing.execution.MockInvokeConfig;
 import io.github.dimkich.integration.testing.initialization.InitializationService;
 import io.github.dimkich.integration.testing.storage.exclusion.FieldExclusionProcessor;
 import io.github.dimkich.integration.testing.storage.keyvalue.KeyValueOperationsConfig;
 import io.github.dimkich.integration.testing.storage.mapping.StorageMappingConfig;
 import io.github.dimkich.integration.testing.storage.pojo.PojoAccessorService;
+import io.github.dimkich.integration.testing.storage.sql.SQLConnectionFactory;
+import io.github.dimkich.integration.testing.storage.sql.SQLConnectionPool;
 import io.github.dimkich.integration.testing.storage.sql.SQLDataStorageFactory;
 import io.github.dimkich.integration.testing.storage.sql.SQLDataStorageService;
+import io.github.dimkich.integration.testing.storage.sql.SQLStorageProperties;
+import io.github.dimkich.integration.testing.storage.sql.state.SqlTableNamesCache;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Cleanup;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -31,8 +37,10 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.jdbc.support.JdbcUtils;
 
 import javax.sql.DataSource;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -51,12 +59,29 @@ public class StorageConfig {
     @Autowired(required = false)
     private final FlywayProperties flywayProperties;
     private final List<SQLDataStorageFactory> factoriesList;
+    private final StorageProperties storageProperties;
     private Map<String, SQLDataStorageFactory> factoriesMap;
+    private final List<SQLConnectionPool> connectionPools = new ArrayList<>();
 
     @PostConstruct
     void init() {
         factoriesMap = factoriesList.stream()
                 .collect(Collectors.toMap(SQLDataStorageFactory::getDriverClassName, Function.identity()));
+        String cacheDirectory = storageProperties.getSql().getCacheDirectory();
+        if (cacheDirectory != null) {
+            SqlTableNamesCache.setDirectory(Path.of(cacheDirectory, "sql-tables"));
+            DataSetCache.setDirectory(Path.of(cacheDirectory, "datasets"));
+        }
+    }
+
+    /**
+     * Closes admin connections of the storages created by this configuration. The storages themselves are
+     * destroyed first, since this configuration is their factory bean.
+     */
+    @PreDestroy
+    void close() {
+        connectionPools.forEach(SQLConnectionPool::close);
+        connectionPools.clear();
     }
 
     public TestDataStorage createDataSourceStorage(String name, DataSource dataSource) throws SQLException {
@@ -86,12 +111,20 @@ public class StorageConfig {
             properties.setUrl(url);
             properties.setDriverClassName(databaseDriver.getDriverClassName());
         }
-        Connection adminConnection = factory.createConnection(url, properties);
-        String newUser = adminConnection.getMetaData().getUserName();
+        SQLDataStorageFactory storageFactory = factory;
+        DataSourceProperties connectionProperties = properties;
+        SQLConnectionFactory connectionFactory = () -> storageFactory.createConnection(url, connectionProperties);
+        SQLStorageProperties sqlProperties = storageProperties.getSql(name);
+        SQLConnectionPool connectionPool = new SQLConnectionPool(name, connectionFactory,
+                sqlProperties.getReadConnectionCount());
+        String newUser = connectionPool.getConnection().getMetaData().getUserName();
         if (newUser.equals(username)) {
+            connectionPool.close();
             throw new SQLException("Cannot use one username in admin and regular connections");
         }
-        return new SQLDataStorageService(factory.createStorage(name, adminConnection, newUser), initializationService);
+        connectionPools.add(connectionPool);
+        return new SQLDataStorageService(storageFactory.createStorage(name, connectionPool, newUser,
+                sqlProperties), initializationService, sqlProperties);
     }
 
     @Configuration
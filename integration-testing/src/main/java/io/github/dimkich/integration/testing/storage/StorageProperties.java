@@ -1,6 +1,7 @@
 package io.github.dimkich.integration.testing.storage;
 
 import io.github.dimkich.integration.testing.storage.mapping.Container;
+import io.github.dimkich.integration.testing.storage.sql.SQLStorageProperties;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -18,7 +19,9 @@ public class StorageProperties extends StorageDiffProperties {
     private final static StoragesProperties defaultProperty = new StoragesProperties();
     private final static Set<String> mergedExcludedFields = new HashSet<>();
     private boolean enabled;
+    private int captureThreads = 4;
     private Map<String, StoragesProperties> storages = new HashMap<>();
+    private SQLStorageProperties sql = new SQLStorageProperties();
 
     {
         setDefaultKeyType(Container.Type.STRING);
@@ -62,6 +65,14 @@ public class StorageProperties extends StorageDiffProperties {
         return properties.getExcludedFields();
     }
 
+    public SQLStorageProperties getSql(String name) {
+        StoragesProperties properties = storages.get(name);
+        if (properties == null || properties.getSql() == null) {
+            return sql;
+        }
+        return properties.getSql().withDefaults(sql);
+    }
+
     private <T> T getConfigValue(String name, int level, BiFunction<StorageDiffProperties, Integer, T> get) {
         T result = null;
         StoragesProperties properties = storages.get(name);
@@ -77,5 +88,6 @@ public class StorageProperties extends StorageDiffProperties {
         private String url;
         private String username;
         private String password;
+        private SQLStorageProperties sql;
     }
 }
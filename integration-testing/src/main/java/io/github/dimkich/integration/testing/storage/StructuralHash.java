@@ -0,0 +1,16 @@
+package io.github.dimkich.integration.testing.storage;
+
+/**
+ * Captured storage value which carries a 64-bit hash of its content.
+ * <p>
+ * The hash is computed once when the value is captured. Values with equal content have equal hashes,
+ * and {@link ObjectsDifference} treats values of the same class with equal hashes as equal without comparing them.
+ */
+public interface StructuralHash {
+    /**
+     * Returns the hash of the content of this value.
+     *
+     * @return structural hash
+     */
+    long getStructuralHash();
+}
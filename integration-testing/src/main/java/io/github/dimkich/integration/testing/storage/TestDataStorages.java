@@ -1,14 +1,21 @@
 package io.github.dimkich.integration.testing.storage;
 
-import eu.ciechanowiec.sneakyfun.SneakyFunction;
 import io.github.dimkich.integration.testing.TestDataStorage;
+import io.github.dimkich.integration.testing.execution.InterceptionContext;
 import io.github.dimkich.integration.testing.execution.MockAnswer;
 import io.github.dimkich.integration.testing.storage.mapping.Container;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -26,6 +33,7 @@ public class TestDataStorages {
 
     private final Set<TestDataStorage> affectedStorages = new HashSet<>();
     private Map<String, Map<String, Object>> currentValue = new LinkedHashMap<>();
+    private ExecutorService executor;
 
     @PostConstruct
     void init() {
@@ -33,6 +41,22 @@ public class TestDataStorages {
                 .collect(Collectors.toMap(TestDataStorage::getName, Function.identity(), (x, y) -> y, LinkedHashMap::new));
         storageMap.clear();
         storageMap.putAll(map);
+        int threads = Math.min(properties.getCaptureThreads(), storageMap.size());
+        if (threads > 1) {
+            AtomicInteger counter = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "test-data-storages-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
     }
 
     public <T extends TestDataStorage> T getTestDataStorage(String name, Class<T> cls) {
@@ -49,18 +73,36 @@ public class TestDataStorages {
 
     public Object getMapDiff() {
         Map<String, Map<String, Object>> currentValue = getCurrentValue(storageMap.values());
-        Object diff = objectsDifference.getDifference(this.currentValue, currentValue);
-        storageMap.forEach((n, s) -> s.setDiff(null));
+        Object diff = executor == null ? objectsDifference.getDifference(this.currentValue, currentValue)
+                : objectsDifference.getDifference(this.currentValue, currentValue, executor);
+        Map<String, Object> storageDiffs = diff instanceof Container container ? container.toMap() : Map.of();
+        storageMap.forEach((n, s) -> s.setDiff(toStorageDiff(storageDiffs.get(n))));
         if (diff instanceof Container container) {
             container.clearNullValueKeys();
             if (container.isEmpty()) {
                 diff = null;
             }
         }
+        currentValue.replaceAll((n, v) -> storageDiffs.containsKey(n) ? share(this.currentValue.get(n), v)
+                : this.currentValue.getOrDefault(n, v));
         this.currentValue = currentValue;
         return diff;
     }
 
+    private Map<String, Object> toStorageDiff(Object diff) {
+        if (diff == null) {
+            return Map.of();
+        }
+        return diff instanceof Container container ? container.toMap() : null;
+    }
+
+    private Map<String, Object> share(Map<String, Object> previous, Map<String, Object> value) {
+        if (previous instanceof SegmentedMap p && value instanceof SegmentedMap v) {
+            return v.shareSegments(p);
+        }
+        return value;
+    }
+
     public void addAffectedStorage(TestDataStorage storage) {
         affectedStorages.add(storage);
     }
@@ -73,17 +115,44 @@ public class TestDataStorages {
         if (affectedStorages.isEmpty()) {
             return;
         }
-        this.currentValue.putAll(getCurrentValue(affectedStorages));
+        getCurrentValue(affectedStorages).forEach((n, v) -> this.currentValue.put(n, share(this.currentValue.get(n), v)));
         affectedStorages.clear();
     }
 
+    @SneakyThrows
     private Map<String, Map<String, Object>> getCurrentValue(Collection<TestDataStorage> storages) {
-        return MockAnswer.enable(() -> storages.stream()
-                .collect(Collectors.toMap(
-                        TestDataStorage::getName,
-                        SneakyFunction.sneaky(s -> s.getCurrentValue(properties.getExcludedFields(s.getName()))),
-                        (v1, v2) -> v2,
-                        properties.getSort(0) ? sorted : ordered
-                )));
+        Map<TestDataStorage, Map<String, Set<String>>> excludedFields = new LinkedHashMap<>();
+        storages.forEach(s -> excludedFields.put(s, properties.getExcludedFields(s.getName())));
+        Map<String, Map<String, Object>> result = properties.getSort(0) ? sorted.get() : ordered.get();
+        if (executor == null || storages.size() < 2) {
+            MockAnswer.enable(() -> {
+                for (Map.Entry<TestDataStorage, Map<String, Set<String>>> entry : excludedFields.entrySet()) {
+                    result.put(entry.getKey().getName(), entry.getKey().getCurrentValue(entry.getValue()));
+                }
+            });
+            return result;
+        }
+        MockAnswer.enable(() -> {
+            Map<String, Future<Map<String, Object>>> futures = new LinkedHashMap<>();
+            excludedFields.forEach((storage, excluded) ->
+                    futures.put(storage.getName(), executor.submit(InterceptionContext.wrap(() -> storage.getCurrentValue(excluded)))));
+            Exception error = null;
+            for (Map.Entry<String, Future<Map<String, Object>>> entry : futures.entrySet()) {
+                try {
+                    result.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception ex ? ex : e;
+                    if (error == null) {
+                        error = cause;
+                    } else if (cause != error) {
+                        error.addSuppressed(cause);
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        });
+        return result;
     }
 }
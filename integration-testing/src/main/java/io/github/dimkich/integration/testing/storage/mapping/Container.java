@@ -2,6 +2,7 @@ package io.github.dimkich.integration.testing.storage.mapping;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import java.util.Map;
 import java.util.function.Function;
 
 public interface Container {
@@ -36,6 +37,14 @@ public interface Container {
     @JsonIgnore
     boolean isEmpty();
 
+    /**
+     * Returns entries of this container as a map of string keys to values.
+     * Values of deleted entries are {@code null}.
+     *
+     * @return map of changed keys to values
+     */
+    Map<String, Object> toMap();
+
     @JsonIgnore
     default void clearNullValueKeys() {
     }
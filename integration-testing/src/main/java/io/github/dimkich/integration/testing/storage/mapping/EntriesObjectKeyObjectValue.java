@@ -1,5 +1,7 @@
 package io.github.dimkich.integration.testing.storage.mapping;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.Function;
 
 public class EntriesObjectKeyObjectValue extends EntriesContainer<EntryObjectKeyObjectValue>{
@@ -7,4 +9,11 @@ public class EntriesObjectKeyObjectValue extends EntriesContainer<EntryObjectKey
     public void addEntry(ChangeType change, Object key, Object value, Function<Object, String> toString) {
         entry.add(new EntryObjectKeyObjectValue(change, key, value));
     }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        entry.forEach(e -> result.put(String.valueOf(e.getKey()), e.getValue()));
+        return result;
+    }
 }
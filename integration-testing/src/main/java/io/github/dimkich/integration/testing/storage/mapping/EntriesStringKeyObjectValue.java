@@ -1,5 +1,7 @@
 package io.github.dimkich.integration.testing.storage.mapping;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.Function;
 
 public class EntriesStringKeyObjectValue extends EntriesContainer<EntryStringKeyObjectValue> {
@@ -7,4 +9,11 @@ public class EntriesStringKeyObjectValue extends EntriesContainer<EntryStringKey
     public void addEntry(ChangeType change, Object key, Object value, Function<Object, String> toString) {
         entry.add(new EntryStringKeyObjectValue(toString.apply(key), change, value));
     }
+
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        entry.forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
 }
@@ -32,6 +32,13 @@ public abstract class MapContainer<K, T> implements Container {
         return map.isEmpty();
     }
 
+    @Override
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        map.forEach((key, value) -> result.put(String.valueOf(key), value));
+        return result;
+    }
+
     @Override
     public void clearNullValueKeys() {
         map.entrySet().removeIf(entry -> entry.getValue() == null);
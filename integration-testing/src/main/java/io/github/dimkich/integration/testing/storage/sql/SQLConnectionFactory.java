@@ -0,0 +1,18 @@
+package io.github.dimkich.integration.testing.storage.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Creates additional JDBC connections with the same settings as the admin connection of a {@link SQLDataStorage}.
+ */
+@FunctionalInterface
+public interface SQLConnectionFactory {
+    /**
+     * Creates a new JDBC connection.
+     *
+     * @return a new JDBC connection
+     * @throws SQLException if the connection cannot be created
+     */
+    Connection createConnection() throws SQLException;
+}
@@ -0,0 +1,233 @@
+package io.github.dimkich.integration.testing.storage.sql;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Small pool of admin connections of a {@link SQLDataStorage}.
+ * <p>
+ * The primary connection, returned by {@link #getConnection()}, is shared by all sequential storage operations.
+ * Additional connections for parallel work are borrowed with {@link #borrow()} and returned with
+ * {@link #release(Connection)}. Closed connections are always replaced, and connections unused for more than
+ * {@value #VALIDATION_INTERVAL_MS} ms are validated before use, so storages survive database restarts.
+ */
+@Slf4j
+public class SQLConnectionPool implements AutoCloseable {
+    private static final long VALIDATION_INTERVAL_MS = 1000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final String name;
+    private final SQLConnectionFactory connectionFactory;
+    private final int maxBorrowed;
+    private final Deque<Connection> idle = new ArrayDeque<>();
+    private final Stats stats = new Stats();
+    private Connection primary;
+    private long primaryLastUsed;
+    private Integer defaultIsolation;
+
+    /**
+     * Creates a pool.
+     *
+     * @param name              storage name, used in logs and errors
+     * @param connectionFactory factory of admin connections
+     * @param maxBorrowed       maximum number of connections borrowed at the same time, besides the primary one
+     */
+    public SQLConnectionPool(String name, SQLConnectionFactory connectionFactory, int maxBorrowed) {
+        this.name = name;
+        this.connectionFactory = connectionFactory;
+        this.maxBorrowed = maxBorrowed;
+    }
+
+    /**
+     * Creates a pool around a single connection, which cannot be reopened or extended with borrowed connections.
+     *
+     * @param name       storage name, used in logs and errors
+     * @param connection admin connection
+     * @return new pool
+     */
+    public static SQLConnectionPool of(String name, Connection connection) {
+        SQLConnectionPool pool = new SQLConnectionPool(name, () -> {
+            throw new SQLException(String.format("Connection of storage '%s' cannot be reopened", name));
+        }, 0);
+        pool.primary = connection;
+        pool.primaryLastUsed = System.currentTimeMillis();
+        pool.stats.open++;
+        pool.stats.created++;
+        return pool;
+    }
+
+    /**
+     * Returns the primary connection, reopening it if it is closed or no longer valid.
+     *
+     * @return primary admin connection
+     * @throws SQLException if the connection cannot be opened
+     */
+    public synchronized Connection getConnection() throws SQLException {
+        long now = System.currentTimeMillis();
+        if (primary != null && !isUsable(primary, now - primaryLastUsed > VALIDATION_INTERVAL_MS)) {
+            log.warn("Reopening connection of storage '{}', {}", name, getStats());
+            closeQuietly(primary);
+            primary = null;
+            stats.open--;
+            stats.reconnects++;
+        }
+        if (primary == null) {
+            primary = create();
+        }
+        primaryLastUsed = now;
+        return primary;
+    }
+
+    /**
+     * Borrows an additional connection. It must be returned with {@link #release(Connection)}.
+     *
+     * @return valid admin connection
+     * @throws SQLException if the pool is exhausted or the connection cannot be opened
+     */
+    public synchronized Connection borrow() throws SQLException {
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            if (isUsable(connection, true)) {
+                stats.borrowed++;
+                return connection;
+            }
+            closeQuietly(connection);
+            stats.open--;
+        }
+        if (stats.borrowed >= maxBorrowed) {
+            throw new SQLException(String.format("Connection pool of storage '%s' is exhausted, %s", name, getStats()));
+        }
+        connection = create();
+        if (defaultIsolation == null) {
+            defaultIsolation = connection.getTransactionIsolation();
+        }
+        stats.borrowed++;
+        return connection;
+    }
+
+    /**
+     * Returns a connection borrowed with {@link #borrow()}. An open transaction is rolled back, and auto-commit,
+     * read-only mode and transaction isolation are restored to their defaults, so the next borrower gets
+     * the connection in the state of a new one.
+     *
+     * @param connection borrowed connection
+     */
+    public synchronized void release(Connection connection) {
+        stats.borrowed--;
+        try {
+            if (!connection.isClosed()) {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                if (connection.isReadOnly()) {
+                    connection.setReadOnly(false);
+                }
+                if (defaultIsolation != null && connection.getTransactionIsolation() != defaultIsolation) {
+                    connection.setTransactionIsolation(defaultIsolation);
+                }
+                idle.push(connection);
+                return;
+            }
+        } catch (SQLException e) {
+            log.debug("Failed to release connection of storage '{}'", name, e);
+            closeQuietly(connection);
+        }
+        stats.open--;
+    }
+
+    /**
+     * Returns a copy of the pool statistics.
+     *
+     * @return pool statistics
+     */
+    public synchronized Stats getStats() {
+        Stats copy = new Stats();
+        copy.open = stats.open;
+        copy.borrowed = stats.borrowed;
+        copy.idle = idle.size();
+        copy.created = stats.created;
+        copy.reconnects = stats.reconnects;
+        copy.validationFailures = stats.validationFailures;
+        return copy;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (primary != null) {
+            closeQuietly(primary);
+            primary = null;
+            stats.open--;
+        }
+        idle.forEach(this::closeQuietly);
+        stats.open -= idle.size();
+        idle.clear();
+    }
+
+    private Connection create() throws SQLException {
+        Connection connection = connectionFactory.createConnection();
+        stats.open++;
+        stats.created++;
+        return connection;
+    }
+
+    private boolean isUsable(Connection connection, boolean validate) {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (validate && !connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                stats.validationFailures++;
+                return false;
+            }
+            return true;
+        } catch (SQLException e) {
+            stats.validationFailures++;
+            return false;
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close connection of storage '{}'", name, e);
+        }
+    }
+
+    /**
+     * Statistics of a {@link SQLConnectionPool}.
+     */
+    @Data
+    public static class Stats {
+        /**
+         * Number of open connections, including the primary one.
+         */
+        private int open;
+        /**
+         * Number of currently borrowed connections.
+         */
+        private int borrowed;
+        /**
+         * Number of idle borrowable connections.
+         */
+        private int idle;
+        /**
+         * Total number of opened connections.
+         */
+        private long created;
+        /**
+         * Number of times the primary connection was reopened.
+         */
+        private long reconnects;
+        /**
+         * Number of connections found invalid.
+         */
+        private long validationFailures;
+    }
+}
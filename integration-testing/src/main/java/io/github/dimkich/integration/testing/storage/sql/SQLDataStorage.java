@@ -3,9 +3,8 @@ package io.github.dimkich.integration.testing.storage.sql;
 import org.dbunit.database.DatabaseConfig;
 import org.dbunit.dataset.IDataSet;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Abstraction over a SQL data storage used by integration tests.
@@ -13,7 +12,7 @@ import java.util.Set;
  * Implementations are responsible for executing SQL, loading DBUnit datasets,
  * and generating vendor-specific SQL snippets to control and clean test data.
  */
-public interface SQLDataStorage {
+public interface SQLDataStorage extends AutoCloseable {
 
     /**
      * Returns the logical name of this storage (for example, a data source alias).
@@ -34,14 +33,46 @@ public interface SQLDataStorage {
      * Reads data from the specified tables and returns them in a storage-specific format.
      *
      * @param tables       tables to read
-     * @param excludedRows map of table name to set of row identifiers (for example, primary keys)
-     *                     that must be excluded from the result
+     * @param excludedRows map of table name to set of columns that must be excluded from the result
      * @return a map containing table data; concrete structure depends on implementation
      * @throws Exception any error while reading data
      */
     Map<String, Object> getTablesData(Collection<String> tables,
                                       Map<String, Set<String>> excludedRows) throws Exception;
 
+    /**
+     * Reads data from the specified tables like {@link #getTablesData(Collection, Map)}, but returns data
+     * of every table separately.
+     *
+     * @param tables       tables to read
+     * @param excludedRows map of table name to set of columns that must be excluded from the result
+     * @return map of table name to table data
+     * @throws Exception any error while reading data
+     */
+    default Map<String, Map<String, Object>> getTablesDataPerTable(Collection<String> tables,
+                                                                   Map<String, Set<String>> excludedRows) throws Exception {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        for (String table : tables) {
+            result.put(table, getTablesData(List.of(table), excludedRows));
+        }
+        return result;
+    }
+
+    /**
+     * Runs the given reads so that all of them see the same state of the storage, for example inside one
+     * {@code REPEATABLE READ} transaction.
+     * <p>
+     * The reads must not change data. By default, they are simply run one after another.
+     *
+     * @param reads reads to run
+     * @param <T>   result type
+     * @return result of the reads
+     * @throws Exception any error while reading data
+     */
+    default <T> T readConsistently(Callable<T> reads) throws Exception {
+        return reads.call();
+    }
+
     /**
      * Loads the given DBUnit dataset into the storage.
      *
@@ -50,6 +81,18 @@ public interface SQLDataStorage {
      */
     void loadDataset(IDataSet dataSet) throws Exception;
 
+    /**
+     * Loads the given DBUnit dataset into the storage using a vendor-specific bulk loading mechanism.
+     * <p>
+     * The result must be the same as of {@link #loadDataset(IDataSet)}, which is used by default.
+     *
+     * @param dataSet dataset to load
+     * @throws Exception any error while loading data
+     */
+    default void bulkLoadDataset(IDataSet dataSet) throws Exception {
+        loadDataset(dataSet);
+    }
+
     /**
      * Provides DBUnit configuration for this storage.
      *
@@ -108,4 +151,234 @@ public interface SQLDataStorage {
      * @return SQL statement that restarts identities
      */
     String getRestartIdentitySql(Collection<String> tables);
+
+    /**
+     * Returns whether statements built by {@link #getClearSql(Collection)} and {@link #getClearSqls(Collection)}
+     * also restart identity/sequence values of the cleared tables, so that
+     * {@link #getRestartIdentitySql(Collection)} is not needed for them.
+     *
+     * @return {@code true} if clearing restarts identities
+     */
+    default boolean isClearRestartingIdentity() {
+        return false;
+    }
+
+    /**
+     * Returns whether this storage can apply table access changes and maintenance statements in batches.
+     *
+     * @return {@code true} if {@link #executeBatch(Collection, Collection, List)} is supported
+     */
+    default boolean isBatchSupported() {
+        return false;
+    }
+
+    /**
+     * Builds SQL statements that clear data from the given tables, one statement per list element.
+     * <p>
+     * Used with {@link #executeBatch(Collection, Collection, List)}; the statements must not return results.
+     *
+     * @param tables tables to clear
+     * @return list of SQL statements
+     */
+    default List<String> getClearSqls(Collection<String> tables) {
+        return List.of(getClearSql(tables));
+    }
+
+    /**
+     * Builds SQL statements that restart identity/sequence values for the given tables, one statement per list
+     * element.
+     * <p>
+     * Used with {@link #executeBatch(Collection, Collection, List)}; the statements must not return results.
+     *
+     * @param tables tables whose identity values must be restarted
+     * @return list of SQL statements
+     */
+    default List<String> getRestartIdentitySqls(Collection<String> tables) {
+        return List.of(getRestartIdentitySql(tables));
+    }
+
+    /**
+     * Allows and restricts the given tables and executes the given statements as JDBC batches.
+     * <p>
+     * The result must be the same as of executing {@link #getAllowTableSql(String)} for each table to allow,
+     * {@link #getRestrictTableSql(String)} for each table to restrict and then the given statements.
+     *
+     * @param tablesToAllow tables to allow
+     * @param tablesToDeny  tables to restrict
+     * @param sqls          statements that do not return results
+     * @throws Exception any error while executing the batches
+     */
+    default void executeBatch(Collection<String> tablesToAllow, Collection<String> tablesToDeny,
+                              List<String> sqls) throws Exception {
+        throw new UnsupportedOperationException("Batches are not supported by storage " + getName());
+    }
+
+    /**
+     * Returns whether this storage supports server-side checkpoints of table data.
+     *
+     * @return {@code true} if {@link #saveCheckpoint(Collection)} and {@link #restoreCheckpoint(Collection)}
+     * are supported
+     */
+    default boolean isCheckpointsSupported() {
+        return false;
+    }
+
+    /**
+     * Saves current data of the given tables into server-side checkpoints, replacing previously saved ones.
+     *
+     * @param tables tables to save
+     * @throws Exception any error while saving data
+     */
+    default void saveCheckpoint(Collection<String> tables) throws Exception {
+        throw new UnsupportedOperationException("Checkpoints are not supported by storage " + getName());
+    }
+
+    /**
+     * Replaces data of the given tables with data saved by {@link #saveCheckpoint(Collection)}.
+     *
+     * @param tables tables to restore; each of them must have a saved checkpoint
+     * @throws Exception any error while restoring data
+     */
+    default void restoreCheckpoint(Collection<String> tables) throws Exception {
+        throw new UnsupportedOperationException("Checkpoints are not supported by storage " + getName());
+    }
+
+    /**
+     * Saves current data of the given tables, together with the sequences they own, into a named
+     * server-side checkpoint of the whole initialization state.
+     * <p>
+     * Supported if {@link #isCheckpointsSupported()} returns {@code true}.
+     *
+     * @param id     state identifier
+     * @param tables tables to save
+     * @throws Exception any error while saving data
+     */
+    default void saveStateCheckpoint(String id, Collection<String> tables) throws Exception {
+        throw new UnsupportedOperationException("Checkpoints are not supported by storage " + getName());
+    }
+
+    /**
+     * Replaces data of the given tables, and of the sequences they own, with data saved by
+     * {@link #saveStateCheckpoint(String, Collection)}.
+     *
+     * @param id     state identifier; the state must have a saved checkpoint
+     * @param tables tables to restore; each of them must be saved in the checkpoint
+     * @throws Exception any error while restoring data
+     */
+    default void restoreStateCheckpoint(String id, Collection<String> tables) throws Exception {
+        throw new UnsupportedOperationException("Checkpoints are not supported by storage " + getName());
+    }
+
+    /**
+     * Removes all checkpoints saved by {@link #saveCheckpoint(Collection)}
+     * and {@link #saveStateCheckpoint(String, Collection)}.
+     *
+     * @throws Exception any error while removing checkpoints
+     */
+    default void dropCheckpoints() throws Exception {
+    }
+
+    /**
+     * Returns whether this storage can log changed rows of tables.
+     *
+     * @return {@code true} if {@link #initChangeLog(Collection)}, {@link #clearChangeLog()}
+     * and {@link #getChangedRows(Collection, Map)} are supported
+     */
+    default boolean isChangeLogSupported() {
+        return false;
+    }
+
+    /**
+     * Starts logging changes of the given tables.
+     *
+     * @param tables tables whose changes must be logged
+     * @throws Exception any error while installing change logging
+     */
+    default void initChangeLog(Collection<String> tables) throws Exception {
+        throw new UnsupportedOperationException("Change log is not supported by storage " + getName());
+    }
+
+    /**
+     * Clears the change log.
+     *
+     * @return tables that had logged changes
+     * @throws Exception any error while clearing the log
+     */
+    default Set<String> clearChangeLog() throws Exception {
+        throw new UnsupportedOperationException("Change log is not supported by storage " + getName());
+    }
+
+    /**
+     * Reads rows changed since the last call of this method or {@link #clearChangeLog()} and clears the change log.
+     * <p>
+     * For every changed table the result contains a map of row keys (in the format of
+     * {@link #getTablesData(Collection, Map)}) to the current row values, or to {@code null} for deleted rows.
+     * If changed rows of a table cannot be determined (for example, after {@code TRUNCATE}), the table
+     * is mapped to {@code null} and must be re-read entirely.
+     *
+     * @param tables       tables to read; changes of other tables are discarded
+     * @param excludedRows map of table name to set of columns that must be excluded from the result
+     * @return changed rows grouped by table
+     * @throws Exception any error while reading data
+     */
+    default Map<String, Map<String, Object>> getChangedRows(Collection<String> tables,
+                                                            Map<String, Set<String>> excludedRows) throws Exception {
+        throw new UnsupportedOperationException("Change log is not supported by storage " + getName());
+    }
+
+    /**
+     * Returns whether this storage can calculate checksums of table contents.
+     *
+     * @return {@code true} if {@link #getTableChecksums(Collection)} is supported
+     */
+    default boolean isTableChecksumsSupported() {
+        return false;
+    }
+
+    /**
+     * Calculates checksums of the contents of the given tables on the storage side.
+     * <p>
+     * Checksums of a table are equal if its rows, including columns excluded from reads, and the state of the
+     * sequences it owns are equal, so the table does not have to be read again.
+     *
+     * @param tables tables to calculate checksums for
+     * @return map of table name to checksum
+     * @throws Exception any error while calculating checksums
+     */
+    default Map<String, String> getTableChecksums(Collection<String> tables) throws Exception {
+        throw new UnsupportedOperationException("Table checksums are not supported by storage " + getName());
+    }
+
+    /**
+     * Returns whether this storage can report states of the sequences owned by tables.
+     *
+     * @return {@code true} if {@link #getSequenceStates(Collection)} is supported
+     */
+    default boolean isSequenceStatesSupported() {
+        return false;
+    }
+
+    /**
+     * Returns states of the sequences owned by the given tables, for example of identity columns.
+     * <p>
+     * States of a table are equal if no values were taken from its sequences, even if the rows of the table
+     * are unchanged, for example after a row was inserted and deleted.
+     *
+     * @param tables tables to return states for
+     * @return map of table name to the state of its sequences; tables without sequences may be omitted
+     * @throws Exception any error while reading states
+     */
+    default Map<String, String> getSequenceStates(Collection<String> tables) throws Exception {
+        throw new UnsupportedOperationException("Sequence states are not supported by storage " + getName());
+    }
+
+    /**
+     * Releases resources held by this storage, for example threads reading tables concurrently.
+     * Admin connections are owned by the {@link SQLConnectionPool} and are not closed here.
+     *
+     * @throws Exception any error while releasing resources
+     */
+    @Override
+    default void close() throws Exception {
+    }
 }
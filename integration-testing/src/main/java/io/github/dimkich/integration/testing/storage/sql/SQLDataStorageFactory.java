@@ -40,4 +40,24 @@ public interface SQLDataStorageFactory {
      * @return a new SQL data storage instance
      */
     SQLDataStorage createStorage(String name, Connection connection, String username);
+
+    /**
+     * Creates a new {@link SQLDataStorage} using admin connections of the provided pool.
+     * <p>
+     * Implementations should take the connection from the pool for each operation, so that connections
+     * dropped by the server are reopened, and can borrow additional connections, for example, to read tables
+     * concurrently. By default, delegates to {@link #createStorage(String, Connection, String)}
+     * with the primary connection of the pool.
+     *
+     * @param name           logical storage name, typically used for logging and identification
+     * @param connectionPool pool of admin connections
+     * @param username       username associated with the storage/connection
+     * @param properties     options of the storage
+     * @return a new SQL data storage instance
+     * @throws SQLException if a connection cannot be opened
+     */
+    default SQLDataStorage createStorage(String name, SQLConnectionPool connectionPool, String username,
+                                         SQLStorageProperties properties) throws SQLException {
+        return createStorage(name, connectionPool.getConnection(), username);
+    }
 }
@@ -1,7 +1,7 @@
 package io.github.dimkich.integration.testing.storage.sql;
 
 import io.github.dimkich.integration.testing.TestDataStorage;
-import io.github.dimkich.integration.testing.dbunit.HumanReadableXmlDataSet;
+import io.github.dimkich.integration.testing.dbunit.DataSetCache;
 import io.github.dimkich.integration.testing.execution.MockAnswer;
 import io.github.dimkich.integration.testing.initialization.InitializationService;
 import io.github.dimkich.integration.testing.initialization.bean.BeanInit;
@@ -9,6 +9,8 @@ import io.github.dimkich.integration.testing.initialization.sql.SqlStorageInit;
 import io.github.dimkich.integration.testing.initialization.sql.SqlStorageInitState;
 import io.github.dimkich.integration.testing.initialization.sql.SqlStorageNoHookInit;
 import io.github.dimkich.integration.testing.initialization.sql.SqlStorageSetup;
+import io.github.dimkich.integration.testing.storage.sql.snapshot.SqlSnapshot;
+import io.github.dimkich.integration.testing.storage.sql.snapshot.TableSnapshot;
 import io.github.dimkich.integration.testing.storage.sql.state.TableStates;
 import io.github.dimkich.integration.testing.storage.sql.state.TablesActionVisitor;
 import lombok.Getter;
@@ -22,19 +24,31 @@ import org.dbunit.dataset.FilteredDataSet;
 import org.dbunit.dataset.IDataSet;
 import org.springframework.core.io.ClassPathResource;
 
-import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Slf4j
 @ToString(onlyExplicitlyIncluded = true)
 @RequiredArgsConstructor
-public class SQLDataStorageService implements TestDataStorage {
+public class SQLDataStorageService implements TestDataStorage, AutoCloseable {
     private final SQLDataStorage storage;
     private final InitializationService initializationService;
+    private final SQLStorageProperties properties;
 
     private final TablesActionVisitor visitor = new TablesActionVisitor();
     private final Set<String> allowedTables = new TreeSet<>();
+    private final Set<String> checkpointTables = new HashSet<>();
+    private final Set<String> seenStates = new HashSet<>();
+    private final Set<String> stateCheckpoints = new HashSet<>();
+    private final Set<String> changedTables = new HashSet<>();
+    private Map<String, Map<String, Object>> snapshot;
+    private Map<String, Set<String>> snapshotExcludedFields;
+    private Map<String, Object> previousValue;
+    private Map<String, Object> lastValue;
+    private Map<String, Set<String>> lastExcludedFields = Map.of();
+    private Map<String, String> sequenceStates;
+    private final Map<String, String> tableChecksums = new HashMap<>();
+    private boolean initChanges;
     private IDataSet dataSet;
     @Getter
     private Map<String, List<SqlStorageSetup.TableHook>> tableHooks = Map.of();
@@ -54,13 +68,18 @@ public class SQLDataStorageService implements TestDataStorage {
                 .toList();
         if (!toRestrict.isEmpty()) {
             storage.initTablesRestriction(toRestrict);
+            if (isChangeLogEnabled()) {
+                storage.initChangeLog(toRestrict);
+            }
         }
         tables = newTables;
+        invalidateSnapshot();
     }
 
     public void executeSqls(Collection<String> sqls) throws Exception {
         if (sqls != null && !sqls.isEmpty()) {
             storage.executeSql(sqls);
+            invalidateSnapshot();
         }
     }
 
@@ -71,11 +90,11 @@ public class SQLDataStorageService implements TestDataStorage {
         return Arrays.asList(dataSet.getTableNames());
     }
 
-    public void setDbUnitXml(Collection<String> paths) throws DataSetException, IOException {
+    public void setDbUnitXml(Collection<String> paths) throws Exception {
+        dropCheckpoints();
         List<IDataSet> dataSets = new ArrayList<>();
         for (String dataSetPath : paths) {
-            IDataSet dataSet = new HumanReadableXmlDataSet(new ClassPathResource(dataSetPath).getInputStream());
-            dataSets.add(dataSet);
+            dataSets.add(DataSetCache.get(new ClassPathResource(dataSetPath)));
         }
         this.dataSet = new CompositeDataSet(dataSets.toArray(IDataSet[]::new));
     }
@@ -92,13 +111,39 @@ public class SQLDataStorageService implements TestDataStorage {
         if (!visitor.isAnyChanges()) {
             return false;
         }
-        if (!visitor.getTablesToRestartIdentity().isEmpty()) {
-            visitor.getSqls().addFirst(storage.getRestartIdentitySql(visitor.getTablesToRestartIdentity()));
+        invalidateSnapshot();
+        initChanges = true;
+        String stateId = getStateCheckpointId(newState, checkDirty);
+        Set<String> stateTables = stateId == null ? Set.of() : newState.getDataTables();
+        boolean restoreState = stateId != null && stateCheckpoints.contains(stateId);
+        Set<String> tablesToRestore = restoreState ? getTablesToRestore(stateTables) : Set.of();
+        if (restoreState) {
+            visitor.getTablesToLoad().clear();
+            visitor.getSqls().clear();
+            visitor.getTablesToClear().removeAll(stateTables);
+            visitor.getTablesToRestartIdentity().removeAll(stateTables);
         }
-        if (!visitor.getTablesToClear().isEmpty()) {
-            visitor.getSqls().addFirst(storage.getClearSql(visitor.getTablesToClear()));
+        if (storage.isClearRestartingIdentity()) {
+            visitor.getTablesToRestartIdentity().removeAll(visitor.getTablesToClear());
         }
-        if (!visitor.getTablesToDeny().isEmpty() || !visitor.getTablesToAllow().isEmpty()) {
+        boolean batch = storage.isBatchSupported();
+        List<String> batchSqls = new ArrayList<>();
+        if (batch) {
+            if (!visitor.getTablesToClear().isEmpty()) {
+                batchSqls.addAll(storage.getClearSqls(visitor.getTablesToClear()));
+            }
+            if (!visitor.getTablesToRestartIdentity().isEmpty()) {
+                batchSqls.addAll(storage.getRestartIdentitySqls(visitor.getTablesToRestartIdentity()));
+            }
+            allowedTables.removeAll(visitor.getTablesToDeny());
+            allowedTables.addAll(visitor.getTablesToAllow());
+        } else {
+            if (!visitor.getTablesToRestartIdentity().isEmpty()) {
+                visitor.getSqls().addFirst(storage.getRestartIdentitySql(visitor.getTablesToRestartIdentity()));
+            }
+            if (!visitor.getTablesToClear().isEmpty()) {
+                visitor.getSqls().addFirst(storage.getClearSql(visitor.getTablesToClear()));
+            }
             for (String table : visitor.getTablesToDeny()) {
                 allowedTables.remove(table);
                 visitor.getSqls().addFirst(storage.getRestrictTableSql(table));
@@ -110,13 +155,28 @@ public class SQLDataStorageService implements TestDataStorage {
         }
         MockAnswer.enable(() -> {
             if (!visitor.getTablesToLoad().isEmpty()) {
-                log.debug("Init '{}' load tables: {}", storage.getName(), visitor.getTablesToLoad());
-                storage.loadDataset(new FilteredDataSet(visitor.getTablesToLoad().toArray(new String[0]), dataSet));
+                loadTables(visitor.getTablesToLoad());
+            }
+            if (batch && (!visitor.getTablesToAllow().isEmpty() || !visitor.getTablesToDeny().isEmpty()
+                    || !batchSqls.isEmpty())) {
+                log.debug("Init '{}' batch: allow {}, restrict {}, SQL: {}", storage.getName(),
+                        visitor.getTablesToAllow(), visitor.getTablesToDeny(), batchSqls);
+                storage.executeBatch(visitor.getTablesToAllow(), visitor.getTablesToDeny(), batchSqls);
             }
             if (!visitor.getSqls().isEmpty()) {
                 log.debug("Init '{}' SQL: {}", storage.getName(), visitor.getSqls());
                 storage.executeSql(visitor.getSqls());
             }
+            if (restoreState) {
+                if (!tablesToRestore.isEmpty()) {
+                    log.debug("Init '{}' restore state {} of tables: {}", storage.getName(), stateId, tablesToRestore);
+                    storage.restoreStateCheckpoint(stateId, tablesToRestore);
+                }
+            } else if (stateId != null && !seenStates.add(stateId)) {
+                log.debug("Init '{}' save state {} of tables: {}", storage.getName(), stateId, stateTables);
+                storage.saveStateCheckpoint(stateId, stateTables);
+                stateCheckpoints.add(stateId);
+            }
             if (!visitor.getHooks().isEmpty()) {
                 List<BeanInit.BeanMethod> list = visitor.getHooks().stream()
                         .map(th -> {
@@ -140,22 +200,268 @@ public class SQLDataStorageService implements TestDataStorage {
         return true;
     }
 
+    private String getStateCheckpointId(TableStates newState, boolean checkDirty) {
+        if (!checkDirty || !properties.isStateCheckpointsEnabled() || !storage.isCheckpointsSupported()
+                || newState.hasNoHookSqls()
+                || (visitor.getTablesToLoad().isEmpty() && visitor.getSqls().isEmpty())) {
+            return null;
+        }
+        return newState.getFingerprint();
+    }
+
+    /**
+     * Returns tables of the state, which are changed by the collected actions, i.e. dirty tables and tables whose
+     * data state or SQL statements differ. Other tables of the state already contain its data.
+     */
+    private Set<String> getTablesToRestore(Set<String> stateTables) {
+        return stateTables.stream()
+                .filter(t -> visitor.getTablesToRestartIdentity().contains(t) || visitor.getSqlTables().contains(t))
+                .collect(Collectors.toSet());
+    }
+
+    private void loadTables(Collection<String> tables) throws Exception {
+        if (!isCheckpointsEnabled()) {
+            log.debug("Init '{}' load tables: {}", storage.getName(), tables);
+            loadDataset(tables);
+            return;
+        }
+        List<String> toLoad = tables.stream().filter(t -> !checkpointTables.contains(t)).toList();
+        List<String> toRestore = tables.stream().filter(checkpointTables::contains).toList();
+        if (!toLoad.isEmpty()) {
+            log.debug("Init '{}' load tables: {}", storage.getName(), toLoad);
+            loadDataset(toLoad);
+            storage.saveCheckpoint(toLoad);
+            checkpointTables.addAll(toLoad);
+        }
+        if (!toRestore.isEmpty()) {
+            log.debug("Init '{}' restore tables from checkpoints: {}", storage.getName(), toRestore);
+            storage.restoreCheckpoint(toRestore);
+        }
+    }
+
+    private void loadDataset(Collection<String> tables) throws Exception {
+        IDataSet filteredDataSet = new FilteredDataSet(tables.toArray(new String[0]), dataSet);
+        if (properties.isBulkLoadEnabled()) {
+            storage.bulkLoadDataset(filteredDataSet);
+        } else {
+            storage.loadDataset(filteredDataSet);
+        }
+    }
+
+    private boolean isCheckpointsEnabled() {
+        return properties.isCheckpointsEnabled() && storage.isCheckpointsSupported();
+    }
+
+    public void dropCheckpoints() throws Exception {
+        if (!checkpointTables.isEmpty() || !stateCheckpoints.isEmpty()) {
+            storage.dropCheckpoints();
+            checkpointTables.clear();
+            stateCheckpoints.clear();
+        }
+        seenStates.clear();
+    }
+
     public void clearTables(Collection<String> tableNames) throws Exception {
-        storage.executeSql(List.of(storage.getRestartIdentitySql(tableNames), storage.getClearSql(tableNames)));
+        boolean restartIdentity = !storage.isClearRestartingIdentity();
+        if (storage.isBatchSupported()) {
+            List<String> sqls = new ArrayList<>();
+            if (restartIdentity) {
+                sqls.addAll(storage.getRestartIdentitySqls(tableNames));
+            }
+            sqls.addAll(storage.getClearSqls(tableNames));
+            storage.executeBatch(List.of(), List.of(), sqls);
+        } else if (restartIdentity) {
+            storage.executeSql(List.of(storage.getRestartIdentitySql(tableNames), storage.getClearSql(tableNames)));
+        } else {
+            storage.executeSql(List.of(storage.getClearSql(tableNames)));
+        }
+        invalidateSnapshot();
     }
 
     @Override
     @SneakyThrows
     public Map<String, Object> getCurrentValue(Map<String, Set<String>> excludedFields) {
-        return storage.getTablesData(allowedTables, excludedFields);
+        if (isChangedTablesOnly()) {
+            captureSequenceStates();
+        }
+        if (isChangeLogEnabled()) {
+            captureChangeLog(excludedFields);
+        } else if (isChecksumsEnabled()) {
+            captureChangedTables(excludedFields);
+        } else {
+            previousValue = lastValue;
+            lastValue = storage.getTablesData(allowedTables, excludedFields);
+            lastExcludedFields = excludedFields;
+            initChanges = false;
+            return lastValue;
+        }
+        initChanges = false;
+        if (allowedTables.stream().allMatch(t -> snapshot.get(t) instanceof SqlSnapshot)) {
+            return new SqlSnapshot(allowedTables.stream()
+                    .flatMap(t -> ((SqlSnapshot) snapshot.get(t)).getTables().stream())
+                    .toList());
+        }
+        Map<String, Object> currentValue = new LinkedHashMap<>();
+        for (String table : allowedTables) {
+            currentValue.putAll(snapshot.get(table));
+        }
+        return currentValue;
+    }
+
+    private void captureChangeLog(Map<String, Set<String>> excludedFields) throws Exception {
+        if (snapshot == null || !excludedFields.equals(snapshotExcludedFields)) {
+            // changes logged before the snapshot is taken are made by init, not by a test
+            storage.clearChangeLog();
+            snapshot = new HashMap<>();
+            snapshotExcludedFields = excludedFields;
+            storage.getTablesDataPerTable(allowedTables, excludedFields)
+                    .forEach((table, rows) -> snapshot.put(table, new LinkedHashMap<>(rows)));
+            return;
+        }
+        Map<String, Map<String, Object>> changes = storage.getChangedRows(allowedTables, excludedFields);
+        log.debug("Storage '{}' changed rows: {}", storage.getName(), changes.keySet());
+        for (Map.Entry<String, Map<String, Object>> entry : changes.entrySet()) {
+            changedTables.add(entry.getKey());
+            if (entry.getValue() == null) {
+                snapshot.put(entry.getKey(),
+                        new LinkedHashMap<>(storage.getTablesData(List.of(entry.getKey()), excludedFields)));
+                continue;
+            }
+            Map<String, Object> rows = snapshot.get(entry.getKey());
+            entry.getValue().forEach((key, row) -> {
+                if (row == null) {
+                    rows.remove(key);
+                } else {
+                    rows.put(key, row);
+                }
+            });
+        }
+    }
+
+    private void captureChangedTables(Map<String, Set<String>> excludedFields) throws Exception {
+        if (snapshot == null || !excludedFields.equals(snapshotExcludedFields)) {
+            snapshot = new HashMap<>();
+            snapshotExcludedFields = excludedFields;
+            tableChecksums.clear();
+        }
+        // checksums and data are read under one snapshot, otherwise data changed between these reads
+        // would be stored under a checksum which does not match it
+        storage.readConsistently(() -> {
+            Map<String, String> checksums = storage.getTableChecksums(allowedTables);
+            List<String> toRead = allowedTables.stream()
+                    .filter(t -> !snapshot.containsKey(t) || !Objects.equals(checksums.get(t), tableChecksums.get(t)))
+                    .toList();
+            log.debug("Storage '{}' changed tables: {}", storage.getName(), toRead);
+            if (!initChanges) {
+                toRead.stream().filter(tableChecksums::containsKey).forEach(changedTables::add);
+            }
+            snapshot.putAll(storage.getTablesDataPerTable(toRead, excludedFields));
+            tableChecksums.putAll(checksums);
+            return null;
+        });
+    }
+
+    /**
+     * Sequences are not transactional, so a test can take values from them without changing any rows,
+     * for example by inserting and deleting a row. The next test would see shifted identity values,
+     * if such a table was not marked dirty.
+     */
+    private void captureSequenceStates() throws Exception {
+        Map<String, String> states = storage.getSequenceStates(allowedTables);
+        if (sequenceStates != null && !initChanges) {
+            allowedTables.stream()
+                    .filter(t -> !Objects.equals(states.get(t), sequenceStates.get(t)))
+                    .forEach(changedTables::add);
+        }
+        sequenceStates = states;
     }
 
     @Override
     public void setDiff(Map<String, Object> diff) {
         SqlStorageInitState currentState = initializationService.changeCurrentStatus(SqlStorageInit.class);
         if (currentState != null) {
-            currentState.getTableStates(this)
-                    .setDirtyTables(allowedTables);
+            Collection<String> dirtyTables = allowedTables;
+            if (isChangedTablesOnly()) {
+                if ((isChangeLogEnabled() || isChecksumsEnabled()) && snapshot != null) {
+                    dirtyTables = getChangedAllowedTables();
+                } else if (diff != null && lastValue instanceof SqlSnapshot) {
+                    dirtyTables = getDiffTables(diff);
+                }
+            }
+            currentState.getTableStates(this).setDirtyTables(dirtyTables);
+        }
+        changedTables.clear();
+    }
+
+    private Collection<String> getDiffTables(Map<String, Object> diff) {
+        Set<String> tables = new HashSet<>();
+        for (String key : diff.keySet()) {
+            String table = findTable(lastValue, key);
+            if (table == null) {
+                table = findTable(previousValue, key);
+            }
+            if (table == null) {
+                return allowedTables;
+            }
+            tables.add(table);
+        }
+        // changes of excluded columns are not captured, so such tables are always considered changed
+        lastExcludedFields.forEach((table, fields) -> {
+            if (!fields.isEmpty()) {
+                tables.add(table);
+            }
+        });
+        tables.addAll(changedTables);
+        tables.retainAll(allowedTables);
+        log.debug("Storage '{}' changed tables: {}", storage.getName(), tables);
+        return tables;
+    }
+
+    private String findTable(Map<String, Object> value, String key) {
+        if (value instanceof SqlSnapshot sqlSnapshot) {
+            for (TableSnapshot table : sqlSnapshot.getTables()) {
+                if (table.containsKey(key)) {
+                    return table.getTable();
+                }
+            }
+        }
+        return null;
+    }
+
+    private Set<String> getChangedAllowedTables() {
+        return allowedTables.stream()
+                .filter(changedTables::contains)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Releases resources of the storage. Called by Spring when the context is closed.
+     */
+    @Override
+    public void close() throws Exception {
+        storage.close();
+    }
+
+    /**
+     * Returns whether only changed tables are marked dirty. Changes of sequences are not visible in captured data,
+     * so this requires states of sequences to be reported by the storage.
+     */
+    private boolean isChangedTablesOnly() {
+        return properties.isChangedTablesOnlyEnabled() && storage.isSequenceStatesSupported();
+    }
+
+    private boolean isChangeLogEnabled() {
+        return properties.isChangeLogCapture() && storage.isChangeLogSupported();
+    }
+
+    private boolean isChecksumsEnabled() {
+        return properties.isChecksumCapture() && storage.isTableChecksumsSupported();
+    }
+
+    private void invalidateSnapshot() {
+        sequenceStates = null;
+        if (!isChecksumsEnabled()) {
+            snapshot = null;
         }
     }
 }
@@ -0,0 +1,133 @@
+package io.github.dimkich.integration.testing.storage.sql;
+
+import lombok.Data;
+
+/**
+ * Options of a {@link SQLDataStorageService}.
+ * <p>
+ * Defaults for all SQL storages are configured with the {@code integration.testing.storage.sql.*} prefix,
+ * and can be overridden for a single storage with the
+ * {@code integration.testing.storage.storages.<name>.sql.*} prefix.
+ */
+@Data
+public class SQLStorageProperties {
+    /**
+     * If {@code true}, data of the tables loaded from DBUnit datasets is saved into server-side checkpoints,
+     * and subsequent reloads of these tables copy data from the checkpoints instead of loading the datasets again.
+     */
+    private Boolean checkpoints;
+    /**
+     * If {@code true}, a table state produced by init SQL and DBUnit datasets is saved into server-side
+     * checkpoints the second time it is reached, and later tests reaching the same state restore it
+     * from the checkpoints instead of loading and executing SQL again.
+     */
+    private Boolean stateCheckpoints;
+    /**
+     * If {@code true}, DBUnit datasets are loaded with {@link SQLDataStorage#bulkLoadDataset}
+     * (for example, {@code COPY} in PostgreSQL) instead of row by row inserts.
+     */
+    private Boolean bulkLoad;
+    /**
+     * If {@code true}, tables are cleared with {@code TRUNCATE ... RESTART IDENTITY} where foreign keys
+     * allow it, instead of deleting rows one by one.
+     */
+    private Boolean truncate;
+    /**
+     * How the current data of tables is captured after each test.
+     */
+    private Capture capture;
+    /**
+     * If {@code true}, only tables changed by a test are reloaded before the next test, instead of all tables
+     * declared in its "init" section. A table is changed if its captured data, its columns excluded from
+     * the capture or the sequences it owns are changed. Requires a storage module which reports states of
+     * sequences, otherwise all declared tables are reloaded.
+     */
+    private Boolean changedTablesOnly;
+    /**
+     * Number of admin connections used to read tables concurrently under one consistent snapshot.
+     * Tables are read with the single admin connection, if not set.
+     */
+    private Integer readConnections;
+    /**
+     * Directory where tables referenced by init SQL and compiled DBUnit datasets are persisted between runs.
+     * Only the value with the {@code integration.testing.storage.sql.*} prefix is used.
+     */
+    private String cacheDirectory;
+    /**
+     * If {@code true}, the database schema produced by Liquibase or Flyway migrations is saved into
+     * {@link #cacheDirectory}, keyed by a hash of the migration files, and restored instead of migrating
+     * on the next start with the same files. Requires {@link #cacheDirectory} and a storage module supporting it.
+     * Only the value with the {@code integration.testing.storage.sql.*} prefix is used.
+     */
+    private Boolean schemaCache;
+
+    /**
+     * Returns new properties, where values not set in this instance are taken from the given defaults.
+     *
+     * @param defaults default properties
+     * @return merged properties
+     */
+    public SQLStorageProperties withDefaults(SQLStorageProperties defaults) {
+        SQLStorageProperties properties = new SQLStorageProperties();
+        properties.checkpoints = checkpoints == null ? defaults.checkpoints : checkpoints;
+        properties.stateCheckpoints = stateCheckpoints == null ? defaults.stateCheckpoints : stateCheckpoints;
+        properties.bulkLoad = bulkLoad == null ? defaults.bulkLoad : bulkLoad;
+        properties.truncate = truncate == null ? defaults.truncate : truncate;
+        properties.capture = capture == null ? defaults.capture : capture;
+        properties.changedTablesOnly = changedTablesOnly == null ? defaults.changedTablesOnly : changedTablesOnly;
+        properties.readConnections = readConnections == null ? defaults.readConnections : readConnections;
+        return properties;
+    }
+
+    public boolean isCheckpointsEnabled() {
+        return Boolean.TRUE.equals(checkpoints);
+    }
+
+    public boolean isStateCheckpointsEnabled() {
+        return Boolean.TRUE.equals(stateCheckpoints);
+    }
+
+    public boolean isSchemaCacheEnabled() {
+        return Boolean.TRUE.equals(schemaCache) && cacheDirectory != null;
+    }
+
+    public boolean isBulkLoadEnabled() {
+        return Boolean.TRUE.equals(bulkLoad);
+    }
+
+    public boolean isTruncateEnabled() {
+        return Boolean.TRUE.equals(truncate);
+    }
+
+    public boolean isChangedTablesOnlyEnabled() {
+        return Boolean.TRUE.equals(changedTablesOnly);
+    }
+
+    public boolean isChangeLogCapture() {
+        return capture == Capture.CHANGE_LOG;
+    }
+
+    public boolean isChecksumCapture() {
+        return capture == Capture.CHECKSUM;
+    }
+
+    public int getReadConnectionCount() {
+        return readConnections == null ? 1 : Math.max(readConnections, 1);
+    }
+
+    public enum Capture {
+        /**
+         * All allowed tables are read entirely.
+         */
+        FULL,
+        /**
+         * Triggers log changed rows, and only these rows are read again.
+         */
+        CHANGE_LOG,
+        /**
+         * Checksums of allowed tables are calculated by the database, and only tables with changed checksums
+         * are read again.
+         */
+        CHECKSUM
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.dimkich.integration.testing.storage.sql.snapshot;
+
+import io.github.dimkich.integration.testing.storage.SegmentedMap;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.stream.StreamSupport;
+
+/**
+ * Read-only map view of the rows of several tables, where keys are row keys and values are
+ * {@link TableSnapshot.Row} views.
+ * <p>
+ * Entries are iterated table by table in the order of the given snapshots. Tables are the segments of
+ * this map, and the structural hash of the snapshot combines the hashes of its tables. Table snapshots are
+ * immutable, so unchanged tables can be shared by subsequent snapshots.
+ */
+public class SqlSnapshot extends AbstractMap<String, Object> implements SegmentedMap {
+    @Getter
+    private final List<TableSnapshot> tables;
+    @Getter
+    private final long structuralHash;
+
+    public SqlSnapshot(List<TableSnapshot> tables) {
+        this.tables = List.copyOf(tables);
+        long hash = 0;
+        for (TableSnapshot table : this.tables) {
+            hash += table.getStructuralHash();
+        }
+        structuralHash = hash;
+    }
+
+    @Override
+    public Map<String, Long> getSegmentHashes() {
+        Map<String, Long> hashes = new HashMap<>();
+        for (TableSnapshot table : tables) {
+            hashes.put(table.getTable(), table.getStructuralHash());
+        }
+        return hashes;
+    }
+
+    @Override
+    public Map<String, Object> getSegments(Collection<String> segments) {
+        return new SqlSnapshot(tables.stream().filter(t -> segments.contains(t.getTable())).toList());
+    }
+
+    @Override
+    public SqlSnapshot shareSegments(SegmentedMap previous) {
+        if (!(previous instanceof SqlSnapshot snapshot)) {
+            return this;
+        }
+        Map<String, TableSnapshot> previousTables = new HashMap<>();
+        snapshot.getTables().forEach(t -> previousTables.put(t.getTable(), t));
+        List<TableSnapshot> shared = new ArrayList<>(tables.size());
+        boolean allShared = tables.size() == snapshot.getTables().size();
+        for (int i = 0; i < tables.size(); i++) {
+            TableSnapshot table = tables.get(i);
+            TableSnapshot previousTable = previousTables.get(table.getTable());
+            if (table.equals(previousTable)) {
+                table = previousTable;
+            }
+            allShared = allShared && table == snapshot.getTables().get(i);
+            shared.add(table);
+        }
+        return allShared ? snapshot : new SqlSnapshot(shared);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof SqlSnapshot other && tables.equals(other.tables)) {
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    @Override
+    public int size() {
+        return tables.stream().mapToInt(TableSnapshot::size).sum();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        for (TableSnapshot table : tables) {
+            if (table.containsKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Object get(Object key) {
+        for (TableSnapshot table : tables) {
+            TableSnapshot.Row row = table.get(key);
+            if (row != null) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return tables.stream().flatMap(t -> {
+                    Iterable<Entry<String, Object>> iterable = t::iterator;
+                    return StreamSupport.stream(iterable.spliterator(), false);
+                }).iterator();
+            }
+
+            @Override
+            public int size() {
+                return SqlSnapshot.this.size();
+            }
+        };
+    }
+}
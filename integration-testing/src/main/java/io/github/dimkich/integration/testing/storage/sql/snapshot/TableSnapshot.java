@@ -0,0 +1,331 @@
+package io.github.dimkich.integration.testing.storage.sql.snapshot;
+
+import io.github.dimkich.integration.testing.storage.StructuralHash;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Columnar snapshot of the rows of one table.
+ * <p>
+ * Column names are shared by all rows, values are stored in one array per column,
+ * and rows are indexed by their keys. Rows are exposed as lightweight {@link Row} map views,
+ * which are created on demand.
+ */
+public class TableSnapshot {
+    @Getter
+    private final String table;
+    private final String[] columns;
+    private final Map<String, Integer> columnIndex;
+    private final Object[][] values;
+    private final String[] keys;
+    private final Map<String, Integer> keyIndex;
+    private final long[] rowHashes;
+    private final int rowCount;
+    @Getter
+    private final long structuralHash;
+
+    private TableSnapshot(Builder builder) {
+        table = builder.table;
+        columns = builder.columns;
+        columnIndex = builder.columnIndex;
+        rowCount = builder.rowCount;
+        values = new Object[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = Arrays.copyOf(builder.values[i], rowCount);
+        }
+        keys = Arrays.copyOf(builder.keys, rowCount);
+        keyIndex = builder.keyIndex;
+        rowHashes = Arrays.copyOf(builder.rowHashes, rowCount);
+        long hash = mix(hash(table));
+        for (int row = nextRow(0); row < rowCount; row = nextRow(row + 1)) {
+            hash += mix(hash(keys[row]) * 31 + rowHashes[row]);
+        }
+        structuralHash = hash;
+    }
+
+    /**
+     * Returns the number of distinct keys in this snapshot.
+     *
+     * @return number of rows
+     */
+    public int size() {
+        return keyIndex.size();
+    }
+
+    public boolean containsKey(Object key) {
+        return keyIndex.containsKey(key);
+    }
+
+    /**
+     * Returns the row with the given key.
+     *
+     * @param key row key
+     * @return row view, or {@code null} if there is no such row
+     */
+    public Row get(Object key) {
+        Integer row = keyIndex.get(key);
+        return row == null ? null : new Row(row);
+    }
+
+    Iterator<Map.Entry<String, Object>> iterator() {
+        return new Iterator<>() {
+            private int row = nextRow(0);
+
+            @Override
+            public boolean hasNext() {
+                return row < rowCount;
+            }
+
+            @Override
+            public Map.Entry<String, Object> next() {
+                if (row >= rowCount) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<String, Object> entry = new AbstractMap.SimpleImmutableEntry<>(keys[row], new Row(row));
+                row = nextRow(row + 1);
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Compares rows of two snapshots. Structural hashes are used only to detect a difference quickly,
+     * equal hashes are followed by the comparison of the rows.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof TableSnapshot other) || structuralHash != other.structuralHash
+                || !table.equals(other.table) || size() != other.size()) {
+            return false;
+        }
+        for (int row = nextRow(0); row < rowCount; row = nextRow(row + 1)) {
+            if (!new Row(row).equals(other.get(keys[row]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(structuralHash);
+    }
+
+    private int nextRow(int from) {
+        int row = from;
+        while (row < rowCount && keyIndex.get(keys[row]) != row) {
+            row++;
+        }
+        return row;
+    }
+
+    public static Builder builder(String table, String[] columns) {
+        return new Builder(table, columns);
+    }
+
+    private static long hash(Object value) {
+        if (value == null) {
+            return 0x9E3779B97F4A7C15L;
+        }
+        if (value instanceof String s) {
+            long hash = 0xCBF29CE484222325L;
+            for (int i = 0; i < s.length(); i++) {
+                hash = (hash ^ s.charAt(i)) * 0x100000001B3L;
+            }
+            return hash;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return mix(((Number) value).longValue()) + value.getClass().hashCode();
+        }
+        if (value instanceof Double d) {
+            return mix(Double.doubleToLongBits(d));
+        }
+        if (value instanceof BigDecimal d) {
+            return mix(hash(d.toString()));
+        }
+        if (value instanceof LocalDateTime dt) {
+            return mix(dt.toLocalDate().toEpochDay()) * 31 + dt.toLocalTime().toNanoOfDay();
+        }
+        if (value instanceof LocalDate d) {
+            return mix(d.toEpochDay() + 1);
+        }
+        if (value instanceof UUID uuid) {
+            return mix(uuid.getMostSignificantBits()) * 31 + uuid.getLeastSignificantBits();
+        }
+        if (value instanceof byte[] bytes) {
+            return hash(new String(bytes, StandardCharsets.ISO_8859_1));
+        }
+        if (value instanceof Object[] array) {
+            return mix(Arrays.deepHashCode(array));
+        }
+        return mix(value.hashCode()) + value.getClass().hashCode();
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Read-only map view of one row of a {@link TableSnapshot}.
+     */
+    public class Row extends AbstractMap<String, Object> implements StructuralHash {
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return columnIndex.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer column = columnIndex.get(key);
+            return column == null ? null : values[column][row];
+        }
+
+        @Override
+        public long getStructuralHash() {
+            return rowHashes[row];
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int column;
+
+                        @Override
+                        public boolean hasNext() {
+                            return column < columns.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (column >= columns.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, Object> entry = new SimpleImmutableEntry<>(columns[column],
+                                    values[column][row]);
+                            column++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columns.length;
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            if (o instanceof TableSnapshot.Row other && Arrays.equals(columns, other.getColumns())) {
+                if (getStructuralHash() != other.getStructuralHash()) {
+                    return false;
+                }
+                for (int i = 0; i < columns.length; i++) {
+                    if (!Objects.deepEquals(values[i][row], other.getValue(i))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return super.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+
+        private String[] getColumns() {
+            return columns;
+        }
+
+        private Object getValue(int column) {
+            return values[column][row];
+        }
+    }
+
+    public static class Builder {
+        private final String table;
+        private final String[] columns;
+        private final Map<String, Integer> columnIndex = new HashMap<>();
+        private Object[][] values;
+        private String[] keys = new String[16];
+        private long[] rowHashes = new long[16];
+        private final long[] columnHashes;
+        private final Map<String, Integer> keyIndex = new HashMap<>();
+        private int rowCount;
+
+        private Builder(String table, String[] columns) {
+            this.table = table;
+            this.columns = columns;
+            values = new Object[columns.length][16];
+            columnHashes = new long[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                columnIndex.put(columns[i], i);
+                columnHashes[i] = hash(columns[i]);
+            }
+        }
+
+        /**
+         * Adds a row. If a row with the same key was already added, it is replaced.
+         *
+         * @param key    row key
+         * @param values column values in the order of the columns of this builder
+         * @return this builder
+         */
+        public Builder addRow(String key, Object[] values) {
+            if (rowCount == keys.length) {
+                int capacity = keys.length * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                rowHashes = Arrays.copyOf(rowHashes, capacity);
+                for (int i = 0; i < columns.length; i++) {
+                    this.values[i] = Arrays.copyOf(this.values[i], capacity);
+                }
+            }
+            long hash = 0;
+            for (int i = 0; i < columns.length; i++) {
+                this.values[i][rowCount] = values[i];
+                hash += mix(columnHashes[i] * 31 + hash(values[i]));
+            }
+            rowHashes[rowCount] = hash;
+            keys[rowCount] = key;
+            keyIndex.put(key, rowCount);
+            rowCount++;
+            return this;
+        }
+
+        public TableSnapshot build() {
+            return new TableSnapshot(this);
+        }
+    }
+}
@@ -82,6 +82,7 @@ public class DataState {
                 visitor.getHooks().addAll(tableHooks);
             }
             visitor.getSqls().add(state.sqls.get(i));
+            visitor.getSqlTables().add(tableName);
         }
 
         int noHookSqlStartIndex = findOverlappingSuffixLength(this.noHookSqls, state.noHookSqls);
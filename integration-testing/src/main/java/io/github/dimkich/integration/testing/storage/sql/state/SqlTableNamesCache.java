@@ -0,0 +1,144 @@
+package io.github.dimkich.integration.testing.storage.sql.state;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jsqlparser.parser.CCJSqlParser;
+import net.sf.jsqlparser.parser.ParseException;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.Statements;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Process-wide cache of tables referenced by SQL statements.
+ * <p>
+ * SQL text is normalized by collapsing spaces and blank lines (line breaks are kept, since they end
+ * line comments), so statements which differ only in formatting are parsed once. At most {@value #MAX_SIZE}
+ * entries are kept in memory, least recently used entries are evicted first. If a directory is set, parsed
+ * results are also stored there in files named after the SHA-256 hash of the JSqlParser version and the
+ * normalized SQL, so subsequent runs do not parse the same SQL again, and a parser upgrade does not reuse
+ * results of the previous version.
+ */
+@Slf4j
+public class SqlTableNamesCache {
+    private static final int MAX_SIZE = 10_000;
+    private static final Map<String, List<String>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+    private static final String PARSER_VERSION = getParserVersion();
+    private static volatile Path directory;
+
+    /**
+     * Sets the directory where parsed results are persisted.
+     *
+     * @param directory directory for persisted results, or {@code null} to keep results in memory only
+     */
+    public static void setDirectory(Path directory) {
+        SqlTableNamesCache.directory = directory;
+    }
+
+    /**
+     * Returns names of the tables referenced by the given SQL statements.
+     *
+     * @param sql one or more SQL statements
+     * @return unmodifiable list of table names
+     * @throws ParseException if SQL parsing fails
+     */
+    public static List<String> getTableList(String sql) throws ParseException {
+        String normalized = normalize(sql);
+        synchronized (cache) {
+            List<String> tables = cache.get(normalized);
+            if (tables != null) {
+                return tables;
+            }
+        }
+        Path file = getFile(normalized);
+        List<String> tables = file == null ? null : read(file);
+        if (tables == null) {
+            tables = parse(sql);
+            if (file != null) {
+                write(file, tables);
+            }
+        }
+        synchronized (cache) {
+            cache.put(normalized, tables);
+        }
+        return tables;
+    }
+
+    private static String normalize(String sql) {
+        return sql.trim().replaceAll("[ \\t]*\\R\\s*", "\n").replaceAll("[ \\t]+", " ");
+    }
+
+    private static List<String> parse(String sql) throws ParseException {
+        CCJSqlParser parser = new CCJSqlParser(sql);
+        Statements statements = parser.me().Statements();
+        TablesNamesFinder tablesNamesFinder = new TablesNamesFinder();
+        List<String> tables = new ArrayList<>();
+        for (Statement statement : statements.getStatements()) {
+            tables.addAll(tablesNamesFinder.getTableList(statement));
+        }
+        return List.copyOf(tables);
+    }
+
+    private static Path getFile(String sql) {
+        Path dir = directory;
+        if (dir == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(PARSER_VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(sql.getBytes(StandardCharsets.UTF_8));
+            return dir.resolve(HexFormat.of().formatHex(hash) + ".tables");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String getParserVersion() {
+        String version = CCJSqlParser.class.getPackage().getImplementationVersion();
+        if (version != null) {
+            return version;
+        }
+        CodeSource source = CCJSqlParser.class.getProtectionDomain().getCodeSource();
+        return source == null || source.getLocation() == null ? "" : source.getLocation().toString();
+    }
+
+    private static List<String> read(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                    .filter(s -> !s.isEmpty())
+                    .toList();
+        } catch (IOException e) {
+            log.debug("Failed to read SQL tables cache file {}", file, e);
+            return null;
+        }
+    }
+
+    private static void write(Path file, List<String> tables) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(tmp, tables, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.debug("Failed to write SQL tables cache file {}", file, e);
+        }
+    }
+}
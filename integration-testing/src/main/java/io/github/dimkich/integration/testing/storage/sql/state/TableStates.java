@@ -4,14 +4,13 @@ import io.github.dimkich.integration.testing.initialization.sql.SqlStorageInit;
 import io.github.dimkich.integration.testing.initialization.sql.SqlStorageSetup;
 import io.github.dimkich.integration.testing.storage.sql.SQLDataStorageService;
 import lombok.ToString;
-import net.sf.jsqlparser.parser.CCJSqlParser;
 import net.sf.jsqlparser.parser.ParseException;
-import net.sf.jsqlparser.statement.Statement;
-import net.sf.jsqlparser.statement.Statements;
-import net.sf.jsqlparser.util.TablesNamesFinder;
 import org.dbunit.dataset.DataSetException;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -105,7 +104,7 @@ public class TableStates {
 
         if (init.getSql() != null) {
             for (String sql : init.getSql()) {
-                for (String name : getTableList(sql)) {
+                for (String name : SqlTableNamesCache.getTableList(sql)) {
                     TableState state = tableStates.tableStates.computeIfAbsent(name, n -> new TableState());
                     if (disableTableHooks) {
                         state.getData().getNoHookSqls().add(sql);
@@ -205,6 +204,58 @@ public class TableStates {
         return states;
     }
 
+    /**
+     * Returns a fingerprint of the data described by these states.
+     * <p>
+     * Two instances have the same fingerprint if all their tables have the same access, data state
+     * and SQL statements, so reaching either of them from scratch produces the same table data.
+     * Dirty flags and table hooks are not included.
+     *
+     * @return SHA-256 hex digest of the canonical form of these states
+     */
+    public String getFingerprint() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, TableState> entry : new TreeMap<>(tableStates).entrySet()) {
+            DataState data = entry.getValue().getData();
+            builder.append(entry.getKey()).append('\0')
+                    .append(entry.getValue().getAccess()).append('\0')
+                    .append(data.getState()).append('\0');
+            data.getSqls().forEach(sql -> builder.append(sql).append('\0'));
+            builder.append('\1');
+            data.getNoHookSqls().forEach(sql -> builder.append(sql).append('\0'));
+            builder.append('\n');
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(builder.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns tables which contain data in these states, i.e. loaded tables and tables modified by SQL statements.
+     *
+     * @return set of table names
+     */
+    public Set<String> getDataTables() {
+        return tableStates.entrySet().stream()
+                .filter(e -> e.getValue().getData().getState() == LOADED
+                        || !e.getValue().getData().getSqls().isEmpty())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Checks whether any table has SQL statements executed without table hooks.
+     *
+     * @return {@code true} if there are such statements
+     */
+    public boolean hasNoHookSqls() {
+        return tableStates.values().stream().anyMatch(s -> !s.getData().getNoHookSqls().isEmpty());
+    }
+
     /**
      * Converts a comma-separated string of table names into a set.
      * Empty strings and null values result in an empty set.
@@ -222,26 +273,4 @@ public class TableStates {
                 .filter(StringUtils::hasText)
                 .collect(Collectors.toCollection(LinkedHashSet::new));
     }
-
-    /**
-     * Extracts table names from a SQL statement or block of SQL statements.
-     * <p>
-     * This method parses the SQL and identifies all tables referenced in the statements.
-     * Multiple statements separated by semicolons are supported, and all referenced tables
-     * from all statements are collected.
-     *
-     * @param sql the SQL statement or block to parse (must not be null)
-     * @return a list of table names referenced in the SQL statements
-     * @throws ParseException if the SQL cannot be parsed
-     */
-    private static List<String> getTableList(String sql) throws ParseException {
-        CCJSqlParser parser = new CCJSqlParser(sql);
-        Statements statements = parser.me().Statements();
-        TablesNamesFinder tablesNamesFinder = new TablesNamesFinder();
-        List<String> tables = new ArrayList<>();
-        for (Statement statement : statements.getStatements()) {
-            tables.addAll(tablesNamesFinder.getTableList(statement));
-        }
-        return tables;
-    }
 }
@@ -63,6 +63,11 @@ public class TablesActionVisitor {
      */
     private final Deque<String> sqls = new ArrayDeque<>();
 
+    /**
+     * Tables for which statements in {@link #sqls} are executed.
+     */
+    private final Set<String> sqlTables = new HashSet<>();
+
     /**
      * SQL statements to be executed without table hooks.
      * Uses LinkedHashSet to preserve insertion order and avoid duplicates.
@@ -102,6 +107,7 @@ public class TablesActionVisitor {
         tablesToRestartIdentity.clear();
         tablesToLoad.clear();
         sqls.clear();
+        sqlTables.clear();
         noHookSqls.clear();
         hooks.clear();
     }
@@ -0,0 +1,233 @@
+package io.github.dimkich.integration.testing.util;
+
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
+import org.assertj.core.api.recursive.comparison.RecursiveComparisonDifferenceCalculator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.function.BiPredicate;
+
+/**
+ * Process-wide registry of equality strategies, used by mock argument matching and storage diffs.
+ * <p>
+ * The strategy of a class is chosen once and cached in a {@link ClassValue}:
+ * <ul>
+ *     <li>a predicate registered with {@link #addEqualsForType} for the class or its nearest supertype;</li>
+ *     <li>the class's own {@code equals}, if the class declares it and the object is compared directly,
+ *     not as a field of another object;</li>
+ *     <li>a field-by-field comparator built from {@link MethodHandle} getters, which compares nested
+ *     values with their own strategies, ignoring their {@code equals} like the recursive comparison does;</li>
+ *     <li>AssertJ's recursive comparison for arrays, collections, maps, JDK types and classes
+ *     whose fields cannot be accessed.</li>
+ * </ul>
+ * Object graphs nested deeper than {@value #MAX_DEPTH} levels, for example cyclic ones, are compared
+ * with the recursive comparison as a whole.
+ */
+public class EqualsRegistry {
+    private static final int MAX_DEPTH = 64;
+    private static final RecursiveComparisonDifferenceCalculator compCalculator =
+            new RecursiveComparisonDifferenceCalculator();
+    private static final RecursiveComparisonConfiguration compConfig = new RecursiveComparisonConfiguration();
+    private static final Map<Class<?>, BiPredicate<Object, Object>> registered = new ConcurrentHashMap<>();
+    private static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+    private static volatile ClassValue<BiPredicate<Object, Object>> plans = createPlans(false);
+    private static volatile ClassValue<BiPredicate<Object, Object>> nestedPlans = createPlans(true);
+
+    static {
+        BiPredicate<AtomicMarkableReference<?>, AtomicMarkableReference<?>> amrEquals = (amr1, amr2) ->
+                isEquals(amr1.getReference(), amr2.getReference());
+        addEqualsForType(AtomicMarkableReference.class, amrEquals);
+    }
+
+    /**
+     * Registers a custom equality predicate for the given type and its subtypes.
+     *
+     * @param type   class for which the predicate should be applied
+     * @param equals bi-predicate that returns {@code true} when values are equal
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized void addEqualsForType(Class<?> type, BiPredicate<?, ?> equals) {
+        registered.put(type, (BiPredicate<Object, Object>) equals);
+        compConfig.registerEqualsForType((BiPredicate<Object, Object>) equals, (Class<Object>) type);
+        plans = createPlans(false);
+        nestedPlans = createPlans(true);
+    }
+
+    /**
+     * Checks whether a custom equality predicate is registered for the given type or its supertypes.
+     *
+     * @param type class to check
+     * @return {@code true} if the type is compared with a registered predicate
+     */
+    public static boolean hasEqualsForType(Class<?> type) {
+        return findRegistered(type) != null;
+    }
+
+    /**
+     * Compares two objects with the strategy of the class of the first one.
+     *
+     * @param o1 first object, may be {@code null}
+     * @param o2 second object, may be {@code null}
+     * @return {@code true} if objects are equal
+     */
+    public static boolean isEquals(Object o1, Object o2) {
+        if (o1 == null || o2 == null) {
+            return o1 == o2;
+        }
+        int[] current = depth.get();
+        if (current[0] > 0) {
+            return nestedPlans.get(o1.getClass()).test(o1, o2);
+        }
+        try {
+            return plans.get(o1.getClass()).test(o1, o2);
+        } catch (TooDeepException e) {
+            return recursiveEquals(o1, o2);
+        } finally {
+            current[0] = 0;
+        }
+    }
+
+    private static boolean nestedEquals(Object o1, Object o2) {
+        if (o1 == o2) {
+            return true;
+        }
+        if (o1 == null || o2 == null) {
+            return false;
+        }
+        if (isContainer(o1.getClass()) && findRegistered(o1.getClass()) == null) {
+            return recursiveEquals(o1, o2);
+        }
+        int[] current = depth.get();
+        if (++current[0] > MAX_DEPTH) {
+            throw new TooDeepException();
+        }
+        try {
+            return nestedPlans.get(o1.getClass()).test(o1, o2);
+        } finally {
+            current[0]--;
+        }
+    }
+
+    private static boolean recursiveEquals(Object o1, Object o2) {
+        return compCalculator.determineDifferences(o1, o2, compConfig).isEmpty();
+    }
+
+    private static ClassValue<BiPredicate<Object, Object>> createPlans(boolean nested) {
+        return new ClassValue<>() {
+            @Override
+            protected BiPredicate<Object, Object> computeValue(Class<?> type) {
+                return createPlan(type, nested);
+            }
+        };
+    }
+
+    private static BiPredicate<Object, Object> createPlan(Class<?> type, boolean nested) {
+        BiPredicate<Object, Object> equals = findRegistered(type);
+        if (equals != null) {
+            return equals;
+        }
+        if (type.isEnum()) {
+            return (o1, o2) -> o1 == o2;
+        }
+        if (!nested && declaresEquals(type)) {
+            return Objects::equals;
+        }
+        if (isContainer(type) || isJdkType(type)) {
+            return EqualsRegistry::recursiveEquals;
+        }
+        MethodHandle[] getters = getGetters(type);
+        if (getters == null) {
+            return EqualsRegistry::recursiveEquals;
+        }
+        return (o1, o2) -> {
+            if (o1.getClass() != o2.getClass()) {
+                return recursiveEquals(o1, o2);
+            }
+            for (MethodHandle getter : getters) {
+                if (!nestedEquals(get(getter, o1), get(getter, o2))) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static BiPredicate<Object, Object> findRegistered(Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            BiPredicate<Object, Object> equals = registered.get(c);
+            if (equals != null) {
+                return equals;
+            }
+            for (Class<?> i : c.getInterfaces()) {
+                equals = registered.get(i);
+                if (equals != null) {
+                    return equals;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean declaresEquals(Class<?> type) {
+        try {
+            return type.getMethod("equals", Object.class).getDeclaringClass() == type;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isContainer(Class<?> type) {
+        return type.isArray() || Iterable.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)
+                || Optional.class == type;
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return type.isPrimitive() || name.startsWith("java.") || name.startsWith("javax.")
+                || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+
+    private static MethodHandle[] getGetters(Class<?> type) {
+        List<MethodHandle> getters = new ArrayList<>();
+        MethodType methodType = MethodType.methodType(Object.class, Object.class);
+        try {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                if (isJdkType(c)) {
+                    return null;
+                }
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    getters.add(MethodHandles.lookup().unreflectGetter(field).asType(methodType));
+                }
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+        return getters.toArray(MethodHandle[]::new);
+    }
+
+    private static Object get(MethodHandle getter, Object object) {
+        try {
+            return (Object) getter.invokeExact(object);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class TooDeepException extends RuntimeException {
+        TooDeepException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.dimkich.integration.testing.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Detects deeply immutable types, whose instances can be shared instead of being cloned.
+ * <p>
+ * Immutable types are primitives and their wrappers, strings, enums, {@code java.time} types, a few other JDK
+ * value types, and non-JDK final classes (including records) whose instance fields are all final and declared
+ * with immutable final types. Types given as configured are never considered immutable, so explicit cloner
+ * actions for them and their fields keep working. Results are computed once per class and cached in a {@link ClassValue}.
+ */
+public class ImmutableTypes {
+    private static final Set<Class<?>> jdkTypes = Set.of(String.class, Boolean.class, Character.class, Byte.class,
+            Short.class, Integer.class, Long.class, Float.class, Double.class, Void.class, BigDecimal.class,
+            BigInteger.class, UUID.class, Locale.class, Currency.class, URI.class, Pattern.class, Class.class);
+
+    private final Set<Class<?>> configuredTypes;
+    private final ClassValue<Boolean> immutable = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isImmutable(type, new HashSet<>());
+        }
+    };
+
+    /**
+     * Creates a detector.
+     *
+     * @param configuredTypes types with explicit cloner actions
+     */
+    public ImmutableTypes(Set<Class<?>> configuredTypes) {
+        this.configuredTypes = Set.copyOf(configuredTypes);
+    }
+
+    /**
+     * Checks whether instances of the given class are deeply immutable.
+     *
+     * @param type class to check
+     * @return {@code true} if instances can be shared instead of being cloned
+     */
+    public boolean isImmutable(Class<?> type) {
+        return immutable.get(type);
+    }
+
+    private boolean isImmutable(Class<?> type, Set<Class<?>> visited) {
+        if (configuredTypes.contains(type)) {
+            return false;
+        }
+        if (type.isPrimitive() || type.isEnum() || jdkTypes.contains(type)
+                || type.getPackageName().equals("java.time")) {
+            return true;
+        }
+        if (type.isArray() || type.isInterface() || !Modifier.isFinal(type.getModifiers()) || isJdkType(type)) {
+            return false;
+        }
+        if (!visited.add(type)) {
+            return true;
+        }
+        for (Class<?> c = type; c != Object.class && c != Record.class; c = c.getSuperclass()) {
+            if (c != type && (configuredTypes.contains(c) || isJdkType(c))) {
+                return false;
+            }
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers)) {
+                    continue;
+                }
+                if (!Modifier.isFinal(modifiers) || !isImmutable(field.getType(), visited)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                || name.startsWith("sun.");
+    }
+}
@@ -6,6 +6,7 @@ import io.github.dimkich.integration.testing.execution.MockInvoke;
 import io.github.dimkich.integration.testing.initialization.InitializationService;
 import io.github.dimkich.integration.testing.storage.sql.SQLDataStorage;
 import io.github.dimkich.integration.testing.storage.sql.SQLDataStorageService;
+import io.github.dimkich.integration.testing.storage.sql.SQLStorageProperties;
 import lombok.RequiredArgsConstructor;
 import org.dbunit.database.DatabaseConfig;
 import org.dbunit.dataset.IDataSet;
@@ -95,7 +96,7 @@ public class InitializationTest {
 
         @Bean
         SQLDataStorageService sqlDataStorageService(@Lazy InitializationService initializationService) {
-            return new SQLDataStorageService(testSQLDataStorage(), initializationService);
+            return new SQLDataStorageService(testSQLDataStorage(), initializationService, new SQLStorageProperties());
         }
 
         @Bean
@@ -0,0 +1,105 @@
+package io.github.dimkich.integration.testing.dbunit;
+
+import org.dbunit.dataset.*;
+import org.dbunit.dataset.datatype.DataType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSetCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void writeAndRead() throws Exception {
+        DefaultTable table1 = new DefaultTable("table1", new Column[]{
+                new Column("id", DataType.UNKNOWN), new Column("name", DataType.UNKNOWN)});
+        table1.addRow(new Object[]{"1", null});
+        table1.addRow(new Object[]{"2", ""});
+        table1.addRow(new Object[]{"3", "Привет, 世界 😀"});
+        table1.addRow(new Object[]{"4", "line\nbreak\ttab"});
+        DefaultTable table2 = new DefaultTable("таблица", new Column[]{new Column("значение", DataType.UNKNOWN)});
+        DefaultTable table3 = new DefaultTable("table3", new Column[]{new Column("id", DataType.UNKNOWN)});
+        table3.addRow(new Object[]{5});
+        IDataSet dataSet = new DefaultDataSet(new ITable[]{table1, table2, table3});
+        Path file = directory.resolve("test.dataset");
+
+        DataSetCache.write(file, dataSet);
+        IDataSet read = DataSetCache.read(file);
+
+        assertEquals(List.of(
+                List.of("table1", "id", "name"),
+                Arrays.asList("1", null), List.of("2", ""), List.of("3", "Привет, 世界 😀"),
+                List.of("4", "line\nbreak\ttab"),
+                List.of("таблица", "значение"),
+                List.of("table3", "id"), List.of("5")
+        ), toList(read));
+    }
+
+    @Test
+    void readUnknownFormat() throws Exception {
+        Path file = directory.resolve("test.dataset");
+        Files.write(file, new byte[]{0, 0, 0, 1, 0, 0, 0, 0});
+
+        assertThrows(IOException.class, () -> DataSetCache.read(file));
+    }
+
+    @Test
+    void get() throws Exception {
+        DefaultTable table = new DefaultTable("get_table", new Column[]{
+                new Column("id", DataType.UNKNOWN), new Column("name", DataType.UNKNOWN)});
+        table.addRow(new Object[]{"1", "Ärger"});
+        table.addRow(new Object[]{"2", null});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HumanReadableXmlDataSet.write(new DefaultDataSet(table), out, StandardCharsets.UTF_8);
+        ByteArrayResource resource = new ByteArrayResource(out.toByteArray());
+
+        DataSetCache.setDirectory(directory);
+        try {
+            IDataSet dataSet = DataSetCache.get(resource);
+
+            assertSame(dataSet, DataSetCache.get(new ByteArrayResource(out.toByteArray())));
+            try (var files = Files.list(directory)) {
+                List<Path> compiled = files.toList();
+                assertEquals(1, compiled.size());
+                assertEquals(toList(dataSet), toList(DataSetCache.read(compiled.get(0))));
+            }
+        } finally {
+            DataSetCache.setDirectory(null);
+        }
+    }
+
+    private static List<List<Object>> toList(IDataSet dataSet) throws DataSetException {
+        List<List<Object>> result = new ArrayList<>();
+        for (String tableName : dataSet.getTableNames()) {
+            ITable table = dataSet.getTable(tableName);
+            List<Object> header = new ArrayList<>();
+            header.add(table.getTableMetaData().getTableName());
+            Column[] columns = table.getTableMetaData().getColumns();
+            for (Column column : columns) {
+                header.add(column.getColumnName());
+            }
+            result.add(header);
+            for (int row = 0; row < table.getRowCount(); row++) {
+                List<Object> values = new ArrayList<>();
+                for (Column column : columns) {
+                    Object value = table.getValue(row, column.getColumnName());
+                    values.add(value == null ? null : value.toString());
+                }
+                result.add(values);
+            }
+        }
+        return result;
+    }
+}
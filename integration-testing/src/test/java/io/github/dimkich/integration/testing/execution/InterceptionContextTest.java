@@ -0,0 +1,134 @@
+package io.github.dimkich.integration.testing.execution;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterceptionContextTest {
+    private final Object answer1 = new Object();
+    private final Object answer2 = new Object();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void enable() throws Exception {
+        assertFalse(InterceptionContext.isEnabled());
+
+        boolean nested = InterceptionContext.enable(() -> InterceptionContext.enable(InterceptionContext::isEnabled));
+
+        assertTrue(nested);
+        assertFalse(InterceptionContext.isEnabled());
+        assertThrows(IllegalStateException.class, () -> InterceptionContext.enable(() -> {
+            throw new IllegalStateException();
+        }));
+        assertFalse(InterceptionContext.isEnabled());
+    }
+
+    @Test
+    void enabledOnOtherThreads() throws Exception {
+        Boolean enabled = InterceptionContext.enable(() -> executor.submit(InterceptionContext::isEnabled).get());
+
+        assertTrue(enabled);
+    }
+
+    @Test
+    void enterNestedAndRestore() {
+        InterceptionContext previous1 = InterceptionContext.enterNested(answer1);
+        InterceptionContext previous2 = InterceptionContext.enterNested(answer2);
+
+        assertTrue(InterceptionContext.isNested(answer1));
+        assertTrue(InterceptionContext.isNested(answer2));
+        InterceptionContext.exitNested(previous2);
+        assertTrue(InterceptionContext.isNested(answer1));
+        assertFalse(InterceptionContext.isNested(answer2));
+        InterceptionContext.exitNested(previous1);
+        assertFalse(InterceptionContext.isNested(answer1));
+    }
+
+    @Test
+    void inheritedByNewThreadsWhileActive() throws Exception {
+        AtomicBoolean nested = new AtomicBoolean();
+        InterceptionContext previous = InterceptionContext.enterNested(answer1);
+        try {
+            Thread thread = new Thread(() -> nested.set(InterceptionContext.isNested(answer1)));
+            thread.start();
+            thread.join();
+            startExecutorThread();
+            assertTrue(executor.submit(() -> InterceptionContext.isNested(answer1)).get());
+        } finally {
+            InterceptionContext.exitNested(previous);
+        }
+
+        assertTrue(nested.get());
+        assertFalse(executor.submit(() -> InterceptionContext.isNested(answer1)).get());
+    }
+
+    @Test
+    void nestedCallsInChildThreads() throws Exception {
+        AtomicBoolean nestedAfterChildCall = new AtomicBoolean();
+        InterceptionContext previous = InterceptionContext.enterNested(answer1);
+        try {
+            Thread thread = new Thread(() -> {
+                InterceptionContext childPrevious = InterceptionContext.enterNested(answer2);
+                InterceptionContext.exitNested(childPrevious);
+                nestedAfterChildCall.set(InterceptionContext.isNested(answer1)
+                        && !InterceptionContext.isNested(answer2));
+            });
+            thread.start();
+            thread.join();
+        } finally {
+            InterceptionContext.exitNested(previous);
+        }
+
+        assertTrue(nestedAfterChildCall.get());
+    }
+
+    @Test
+    void wrap() throws Exception {
+        startExecutorThread();
+        InterceptionContext previous = InterceptionContext.enterNested(answer1);
+        try {
+            assertTrue(executor.submit(InterceptionContext.wrap(() -> InterceptionContext.isNested(answer1))).get());
+            AtomicBoolean nested = new AtomicBoolean();
+            executor.submit(InterceptionContext.wrap(() -> nested.set(InterceptionContext.isNested(answer1)))).get();
+            assertTrue(nested.get());
+        } finally {
+            InterceptionContext.exitNested(previous);
+        }
+
+        assertFalse(executor.submit(() -> InterceptionContext.isNested(answer1)).get());
+    }
+
+    @Test
+    void wrapExecutor() throws Exception {
+        startExecutorThread();
+        AtomicBoolean nested = new AtomicBoolean();
+        InterceptionContext previous = InterceptionContext.enterNested(answer1);
+        try {
+            assertFalse(executor.submit(() -> InterceptionContext.isNested(answer1)).get());
+            CompletableFuture.runAsync(() -> nested.set(InterceptionContext.isNested(answer1)),
+                    InterceptionContext.wrap((Executor) executor)).get();
+        } finally {
+            InterceptionContext.exitNested(previous);
+        }
+
+        assertTrue(nested.get());
+        assertFalse(InterceptionContext.isNested(answer1));
+    }
+
+    private void startExecutorThread() throws Exception {
+        executor.submit(() -> {
+        }).get();
+    }
+}
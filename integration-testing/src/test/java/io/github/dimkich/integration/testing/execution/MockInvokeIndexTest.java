@@ -0,0 +1,81 @@
+package io.github.dimkich.integration.testing.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MockInvokeIndexTest {
+    private final List<MockInvoke> mockInvokes = new ArrayList<>();
+
+    @Test
+    void searchByValues() {
+        MockInvoke a = add("mock", "get", "a", 1);
+        MockInvoke b = add("mock", "get", "b", 1);
+        MockInvoke other = add("other", "get", "a", 1);
+        MockInvokeIndex index = new MockInvokeIndex(mockInvokes);
+
+        assertSame(a, index.search("mock", "get", List.of("a", 1)));
+        assertSame(b, index.search("mock", "get", List.of("b", 1)));
+        assertSame(other, index.search("other", "get", List.of("a", 1)));
+        assertNull(index.search("mock", "get", List.of("a", 1L)));
+        assertNull(index.search("mock", "get", List.of("a")));
+        assertNull(index.search("mock", "put", List.of("a", 1)));
+        assertNull(index.search("unknown", "get", List.of("a", 1)));
+    }
+
+    @Test
+    void searchFirstInListOrder() {
+        MockInvoke first = add("mock", "get", "a", LocalDate.of(2020, 1, 1));
+        add("mock", "get", "a", LocalDate.of(2020, 1, 1));
+        MockInvoke disabled = add("mock", "get", "b", 2).setDisabled(true);
+        MockInvoke afterDisabled = add("mock", "get", "c", 3);
+        MockInvokeIndex index = new MockInvokeIndex(mockInvokes);
+
+        assertSame(first, index.search("mock", "get", List.of("a", LocalDate.of(2020, 1, 1))));
+        assertSame(disabled, index.search("mock", "get", List.of("c", 3)));
+        assertSame(disabled, index.search("mock", "get", List.of()));
+        mockInvokes.remove(disabled);
+        index = new MockInvokeIndex(mockInvokes);
+        assertSame(afterDisabled, index.search("mock", "get", List.of("c", 3)));
+    }
+
+    @Test
+    void searchByNullsAndEnums() {
+        MockInvoke nullArgs = new MockInvoke().setName("mock").setMethod("get");
+        mockInvokes.add(nullArgs);
+        MockInvoke nullArg = add("mock", "get", (Object) null);
+        MockInvoke enumArg = add("mock", "get", TimeUnit.SECONDS);
+        MockInvokeIndex index = new MockInvokeIndex(mockInvokes);
+
+        assertSame(nullArgs, index.search("mock", "get", null));
+        assertSame(nullArg, index.search("mock", "get", Arrays.asList((Object) null)));
+        assertSame(enumArg, index.search("mock", "get", List.of(TimeUnit.SECONDS)));
+        assertNull(index.search("mock", "get", List.of(TimeUnit.MINUTES)));
+    }
+
+    @Test
+    void indexAppendedInvocations() {
+        MockInvokeIndex index = new MockInvokeIndex(mockInvokes);
+        assertNull(index.search("mock", "get", List.of("a")));
+
+        MockInvoke a = add("mock", "get", "a");
+
+        assertTrue(index.isIndexOf(mockInvokes));
+        assertSame(a, index.search("mock", "get", List.of("a")));
+        assertFalse(index.isIndexOf(new ArrayList<>(mockInvokes)));
+        mockInvokes.clear();
+        assertFalse(index.isIndexOf(mockInvokes));
+    }
+
+    private MockInvoke add(String name, String method, Object... args) {
+        MockInvoke mockInvoke = new MockInvoke().setName(name).setMethod(method).setArg(Arrays.asList(args));
+        mockInvokes.add(mockInvoke);
+        return mockInvoke;
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.dimkich.integration.testing.execution;
+
+import io.github.dimkich.integration.testing.TestCase;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MockInvokeRecorderTest {
+    private final MockInvokeProperties properties = new MockInvokeProperties();
+    private final TestCase test = new TestCase();
+
+    @Test
+    void recordAndFlush() {
+        MockInvokeRecorder recorder = new MockInvokeRecorder(properties);
+        IllegalStateException error = new IllegalStateException("error");
+
+        assertTrue(recorder.record("mock", "get", new Object[]{"a"}, 1, null));
+        assertTrue(recorder.record("mock", "get", null, null, error));
+        assertTrue(test.getMockInvoke().isEmpty());
+        recorder.flush(test);
+
+        List<MockInvoke> mockInvokes = test.getMockInvoke();
+        assertEquals(2, mockInvokes.size());
+        assertEquals("mock", mockInvokes.get(0).getName());
+        assertEquals("get", mockInvokes.get(0).getMethod());
+        assertEquals(List.of("a"), mockInvokes.get(0).getArg());
+        assertEquals(1, mockInvokes.get(0).getResult().get(0).getReturn1());
+        assertNull(mockInvokes.get(1).getArg());
+        assertSame(error, mockInvokes.get(1).getResult().get(0).getThrow1());
+        recorder.flush(test);
+        assertEquals(2, test.getMockInvoke().size());
+    }
+
+    @Test
+    void fullBuffer() {
+        properties.setRecordBufferSize(2);
+        MockInvokeRecorder recorder = new MockInvokeRecorder(properties);
+
+        assertTrue(recorder.record("mock", "get", new Object[]{1}, 1, null));
+        assertTrue(recorder.record("mock", "get", new Object[]{2}, 2, null));
+        assertFalse(recorder.record("mock", "get", new Object[]{3}, 3, null));
+        recorder.flush(test);
+        assertTrue(recorder.record("mock", "get", new Object[]{3}, 3, null));
+        recorder.flush(test);
+
+        assertEquals(List.of(List.of(1), List.of(2), List.of(3)),
+                test.getMockInvoke().stream().map(MockInvoke::getArg).toList());
+    }
+
+    @Test
+    void deduplicate() {
+        properties.setRecordDeduplicate(true);
+        MockInvokeRecorder recorder = new MockInvokeRecorder(properties);
+
+        recorder.record("mock", "get", new Object[]{"a"}, 1, null);
+        recorder.record("mock", "get", new Object[]{"a"}, 1, null);
+        recorder.record("mock", "get", new Object[]{"a"}, 2, null);
+        recorder.record("mock", "get", new Object[]{"b"}, 1, null);
+        recorder.flush(test);
+
+        List<MockInvoke> mockInvokes = test.getMockInvoke();
+        assertEquals(2, mockInvokes.size());
+        assertEquals(List.of(1, 2), mockInvokes.get(0).getResult().stream().map(MockInvokeResult::getReturn1)
+                .toList());
+        assertEquals(List.of("b"), mockInvokes.get(1).getArg());
+    }
+
+    @Test
+    void maxInvokes() {
+        properties.setRecordMaxInvokes(2);
+        MockInvokeRecorder recorder = new MockInvokeRecorder(properties);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(recorder.record("mock", "get", new Object[]{i}, i, null));
+        }
+        recorder.flush(test);
+        assertEquals(2, test.getMockInvoke().size());
+
+        recorder.reset();
+        recorder.record("mock", "get", new Object[]{5}, 5, null);
+        recorder.flush(test);
+        assertEquals(3, test.getMockInvoke().size());
+    }
+
+    @Test
+    void recordConcurrently() throws Exception {
+        properties.setRecordBufferSize(16);
+        MockInvokeRecorder recorder = new MockInvokeRecorder(properties);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int from = thread * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int i = from; i < from + 1000; i++) {
+                        while (!recorder.record("mock", "get", new Object[]{i}, i, null)) {
+                            synchronized (test) {
+                                recorder.flush(test);
+                            }
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        recorder.flush(test);
+
+        assertEquals(4000, test.getMockInvoke().size());
+        assertEquals(4000, test.getMockInvoke().stream().map(MockInvoke::getArg).distinct().count());
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.dimkich.integration.testing.storage;
+
+import io.github.dimkich.integration.testing.TestDataStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TestDataStoragesTest {
+    private final ObjectsDifference objectsDifference = mock(ObjectsDifference.class);
+    private final CountDownLatch started = new CountDownLatch(2);
+    private TestDataStorages storages;
+
+    @AfterEach
+    void tearDown() {
+        if (storages != null) {
+            storages.destroy();
+        }
+    }
+
+    @Test
+    void currentValueInStorageOrder() {
+        Stub slow = new Stub("b", 100, null);
+        Stub fast = new Stub("a", 0, null);
+        createStorages(slow, fast);
+        AtomicReference<Map<String, ?>> currentValue = new AtomicReference<>();
+        when(objectsDifference.getDifference(anyMap(), anyMap(), any(Executor.class))).thenAnswer(invocation -> {
+            currentValue.set(invocation.getArgument(1));
+            return null;
+        });
+
+        assertNull(storages.getMapDiff());
+
+        assertEquals(List.of("b", "a"), new ArrayList<>(currentValue.get().keySet()));
+        assertEquals(Map.of("value", "b"), currentValue.get().get("b"));
+        assertEquals(Map.of("value", "a"), currentValue.get().get("a"));
+        assertTrue(slow.threadName.startsWith("test-data-storages-"));
+        assertTrue(fast.threadName.startsWith("test-data-storages-"));
+        assertNotEquals(slow.threadName, fast.threadName);
+    }
+
+    @Test
+    void errorsPropagated() {
+        IllegalStateException first = new IllegalStateException("b");
+        IllegalStateException second = new IllegalStateException("a");
+        createStorages(new Stub("b", 100, first), new Stub("a", 0, second));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, storages::getMapDiff);
+
+        assertSame(first, error);
+        assertArrayEquals(new Throwable[]{second}, error.getSuppressed());
+    }
+
+    private void createStorages(TestDataStorage... stubs) {
+        Map<String, TestDataStorage> storageMap = new LinkedHashMap<>();
+        for (TestDataStorage stub : stubs) {
+            storageMap.put(stub.getName() + "Storage", stub);
+        }
+        storages = new TestDataStorages(storageMap, objectsDifference, new StorageProperties());
+        storages.init();
+    }
+
+    private class Stub implements TestDataStorage {
+        private final String name;
+        private final long delay;
+        private final RuntimeException error;
+        private volatile String threadName;
+
+        Stub(String name, long delay, RuntimeException error) {
+            this.name = name;
+            this.delay = delay;
+            this.error = error;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Map<String, Object> getCurrentValue(Map<String, Set<String>> excludedFields) throws Exception {
+            threadName = Thread.currentThread().getName();
+            started.countDown();
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Thread.sleep(delay);
+            if (error != null) {
+                throw error;
+            }
+            return Map.of("value", name);
+        }
+    }
+}
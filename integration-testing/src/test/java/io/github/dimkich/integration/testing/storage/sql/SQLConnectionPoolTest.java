@@ -0,0 +1,163 @@
+package io.github.dimkich.integration.testing.storage.sql;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class SQLConnectionPoolTest {
+    private final List<Connection> created = new ArrayList<>();
+    private final SQLConnectionPool pool = new SQLConnectionPool("test", this::createConnection, 2);
+
+    @Test
+    void reusePrimaryConnection() throws Exception {
+        Connection connection = pool.getConnection();
+
+        assertSame(connection, pool.getConnection());
+        assertEquals(1, created.size());
+        assertEquals(1, pool.getStats().getOpen());
+    }
+
+    @Test
+    void reopenClosedPrimaryConnection() throws Exception {
+        Connection connection = pool.getConnection();
+        when(connection.isClosed()).thenReturn(true);
+
+        Connection reopened = pool.getConnection();
+
+        assertNotSame(connection, reopened);
+        verify(connection).close();
+        SQLConnectionPool.Stats stats = pool.getStats();
+        assertEquals(1, stats.getOpen());
+        assertEquals(2, stats.getCreated());
+        assertEquals(1, stats.getReconnects());
+    }
+
+    @Test
+    void borrowAndRelease() throws Exception {
+        Connection connection1 = pool.borrow();
+        Connection connection2 = pool.borrow();
+
+        assertThrows(SQLException.class, pool::borrow);
+        pool.release(connection1);
+        assertSame(connection1, pool.borrow());
+        pool.release(connection1);
+        pool.release(connection2);
+
+        SQLConnectionPool.Stats stats = pool.getStats();
+        assertEquals(2, stats.getOpen());
+        assertEquals(0, stats.getBorrowed());
+        assertEquals(2, stats.getIdle());
+        assertEquals(2, stats.getCreated());
+    }
+
+    @Test
+    void rollbackReleasedTransaction() throws Exception {
+        Connection connection = pool.borrow();
+        when(connection.getAutoCommit()).thenReturn(false);
+
+        pool.release(connection);
+
+        verify(connection).rollback();
+        assertEquals(1, pool.getStats().getIdle());
+    }
+
+    @Test
+    void resetReleasedConnection() throws Exception {
+        Connection connection = pool.borrow();
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(connection.isReadOnly()).thenReturn(true);
+        when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_REPEATABLE_READ);
+
+        pool.release(connection);
+
+        InOrder order = inOrder(connection);
+        order.verify(connection).rollback();
+        order.verify(connection).setAutoCommit(true);
+        verify(connection).setReadOnly(false);
+        verify(connection).setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        assertEquals(1, pool.getStats().getIdle());
+    }
+
+    @Test
+    void keepDefaultStateOfReleasedConnection() throws Exception {
+        Connection connection = pool.borrow();
+
+        pool.release(connection);
+
+        verify(connection, never()).rollback();
+        verify(connection, never()).setAutoCommit(anyBoolean());
+        verify(connection, never()).setReadOnly(anyBoolean());
+        verify(connection, never()).setTransactionIsolation(anyInt());
+    }
+
+    @Test
+    void replaceInvalidIdleConnection() throws Exception {
+        Connection connection = pool.borrow();
+        pool.release(connection);
+        when(connection.isValid(anyInt())).thenReturn(false);
+
+        Connection replaced = pool.borrow();
+
+        assertNotSame(connection, replaced);
+        verify(connection).close();
+        SQLConnectionPool.Stats stats = pool.getStats();
+        assertEquals(1, stats.getOpen());
+        assertEquals(1, stats.getBorrowed());
+        assertEquals(1, stats.getValidationFailures());
+    }
+
+    @Test
+    void dropClosedReleasedConnection() throws Exception {
+        Connection connection = pool.borrow();
+        when(connection.isClosed()).thenReturn(true);
+
+        pool.release(connection);
+
+        SQLConnectionPool.Stats stats = pool.getStats();
+        assertEquals(0, stats.getOpen());
+        assertEquals(0, stats.getIdle());
+    }
+
+    @Test
+    void close() throws Exception {
+        Connection primary = pool.getConnection();
+        Connection borrowed = pool.borrow();
+        pool.release(borrowed);
+
+        pool.close();
+
+        verify(primary).close();
+        verify(borrowed).close();
+        assertEquals(0, pool.getStats().getOpen());
+        assertEquals(0, pool.getStats().getIdle());
+    }
+
+    @Test
+    void singleConnectionPool() throws Exception {
+        Connection connection = createConnection();
+        SQLConnectionPool single = SQLConnectionPool.of("single", connection);
+
+        assertSame(connection, single.getConnection());
+        assertThrows(SQLException.class, single::borrow);
+        when(connection.isClosed()).thenReturn(true);
+        assertThrows(SQLException.class, single::getConnection);
+    }
+
+    private Connection createConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+        created.add(connection);
+        return connection;
+    }
+}
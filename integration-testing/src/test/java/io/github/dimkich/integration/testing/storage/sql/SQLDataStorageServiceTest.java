@@ -0,0 +1,126 @@
+package io.github.dimkich.integration.testing.storage.sql;
+
+import io.github.dimkich.integration.testing.initialization.InitializationService;
+import io.github.dimkich.integration.testing.initialization.sql.SqlStorageInit;
+import io.github.dimkich.integration.testing.initialization.sql.SqlStorageInitState;
+import io.github.dimkich.integration.testing.storage.sql.snapshot.SqlSnapshot;
+import io.github.dimkich.integration.testing.storage.sql.snapshot.TableSnapshot;
+import io.github.dimkich.integration.testing.storage.sql.state.TableStates;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SQLDataStorageServiceTest {
+    private static final String[] COLUMNS = {"id", "name"};
+
+    private final SQLDataStorage storage = mock(SQLDataStorage.class);
+    private final InitializationService initializationService = mock(InitializationService.class);
+    private final TableStates tableStates = mock(TableStates.class);
+    private final SQLStorageProperties properties = new SQLStorageProperties();
+    private final SQLDataStorageService service = new SQLDataStorageService(storage, initializationService,
+            properties);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(storage.getName()).thenReturn("test");
+        when(storage.getAllowTableSql(anyString())).thenReturn("allow");
+        when(storage.getClearSql(any())).thenReturn("clear");
+        when(storage.getRestartIdentitySql(any())).thenReturn("restart");
+        SqlStorageInitState state = mock(SqlStorageInitState.class);
+        when(state.getTableStates(service)).thenReturn(tableStates);
+        when(initializationService.changeCurrentStatus(SqlStorageInit.class)).thenReturn(state);
+    }
+
+    @Test
+    void allTablesDirtyByDefault() throws Exception {
+        when(storage.isSequenceStatesSupported()).thenReturn(true);
+        allowTables();
+        when(storage.getTablesData(any(), any())).thenReturn(snapshot("a"), snapshot("b"));
+
+        service.getCurrentValue(Map.of());
+        service.getCurrentValue(Map.of());
+        service.setDiff(Map.of("t1_1", "b"));
+
+        verify(tableStates).setDirtyTables(Set.of("t1", "t2", "t3"));
+        verify(storage, never()).getSequenceStates(any());
+    }
+
+    @Test
+    void allTablesDirtyWithoutSequenceStates() throws Exception {
+        properties.setChangedTablesOnly(true);
+        allowTables();
+        when(storage.getTablesData(any(), any())).thenReturn(snapshot("a"), snapshot("b"));
+
+        service.getCurrentValue(Map.of());
+        service.getCurrentValue(Map.of());
+        service.setDiff(Map.of("t1_1", "b"));
+
+        verify(tableStates).setDirtyTables(Set.of("t1", "t2", "t3"));
+    }
+
+    @Test
+    void changedTablesOnly() throws Exception {
+        properties.setChangedTablesOnly(true);
+        when(storage.isSequenceStatesSupported()).thenReturn(true);
+        allowTables();
+        when(storage.getTablesData(any(), any())).thenReturn(snapshot("a"), snapshot("b"));
+        when(storage.getSequenceStates(any())).thenReturn(Map.of("t1", "1:true", "t2", "1:true"),
+                Map.of("t1", "1:true", "t2", "2:true"));
+
+        service.getCurrentValue(Map.of("t3", Set.of("name")));
+        service.getCurrentValue(Map.of("t3", Set.of("name")));
+        service.setDiff(Map.of("t1_1", "b"));
+
+        verify(tableStates).setDirtyTables(Set.of("t1", "t2", "t3"));
+    }
+
+    @Test
+    void changedTablesOnlyWithoutChanges() throws Exception {
+        properties.setChangedTablesOnly(true);
+        when(storage.isSequenceStatesSupported()).thenReturn(true);
+        allowTables();
+        when(storage.getTablesData(any(), any())).thenReturn(snapshot("a"), snapshot("a"));
+        when(storage.getSequenceStates(any())).thenReturn(Map.of("t1", "1:true", "t2", "1:true"));
+
+        service.getCurrentValue(Map.of("t3", Set.of()));
+        service.getCurrentValue(Map.of("t3", Set.of()));
+        service.setDiff(Map.of());
+
+        verify(tableStates).setDirtyTables(Set.of());
+    }
+
+    @Test
+    void sequenceChangedByInit() throws Exception {
+        properties.setChangedTablesOnly(true);
+        when(storage.isSequenceStatesSupported()).thenReturn(true);
+        when(storage.getTablesData(any(), any())).thenReturn(snapshot("a"));
+        when(storage.getSequenceStates(any())).thenReturn(Map.of("t1", "1:true"), Map.of("t1", "2:true"));
+
+        service.getCurrentValue(Map.of());
+        allowTables();
+        service.getCurrentValue(Map.of());
+        service.setDiff(Map.of());
+
+        verify(tableStates).setDirtyTables(Set.of());
+    }
+
+    private void allowTables() throws Exception {
+        SqlStorageInit init = new SqlStorageInit();
+        init.setTablesToChange("t1, t2, t3");
+        service.applyChanges(TableStates.createDefault(List.of("t1", "t2", "t3"), Map.of()),
+                TableStates.createFromInit(service, init), false);
+    }
+
+    private static SqlSnapshot snapshot(String name) {
+        return new SqlSnapshot(List.of(
+                TableSnapshot.builder("t1", COLUMNS).addRow("t1_1", new Object[]{1, name}).build(),
+                TableSnapshot.builder("t2", COLUMNS).addRow("t2_1", new Object[]{1, "a"}).build(),
+                TableSnapshot.builder("t3", COLUMNS).addRow("t3_1", new Object[]{1, "a"}).build()));
+    }
+}
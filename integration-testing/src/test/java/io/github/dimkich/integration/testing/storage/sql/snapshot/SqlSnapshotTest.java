@@ -0,0 +1,211 @@
+package io.github.dimkich.integration.testing.storage.sql.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlSnapshotTest {
+    private static final String[] COLUMNS = {"id", "name"};
+
+    static Object[][] rowsData() {
+        return new Object[][]{
+                {new Object[]{1, "a"}, new Object[]{1, "a"}, true},
+                {new Object[]{1, "a"}, new Object[]{1, "b"}, false},
+                {new Object[]{1, null}, new Object[]{1, null}, true},
+                {new Object[]{1, null}, new Object[]{1, ""}, false},
+                {new Object[]{1, new byte[]{1, 2}}, new Object[]{1, new byte[]{1, 2}}, true},
+                {new Object[]{1, new byte[]{1, 2}}, new Object[]{1, new byte[]{2, 1}}, false},
+                {new Object[]{1, new Object[]{"a", null}}, new Object[]{1, new Object[]{"a", null}}, true},
+                {new Object[]{1, new Object[]{"a", null}}, new Object[]{1, new Object[]{null, "a"}}, false},
+                {new Object[]{1, "a"}, new Object[]{1L, "a"}, false},
+        };
+    }
+
+    @ParameterizedTest
+    @MethodSource("rowsData")
+    void rowEquals(Object[] values1, Object[] values2, boolean equal) {
+        TableSnapshot.Row row1 = TableSnapshot.builder("t", COLUMNS).addRow("t_1", values1).build().get("t_1");
+        TableSnapshot.Row row2 = TableSnapshot.builder("t", COLUMNS).addRow("t_1", values2).build().get("t_1");
+
+        assertEquals(equal, row1.equals(row2));
+        assertEquals(equal, row2.equals(row1));
+        if (equal) {
+            assertEquals(row1.getStructuralHash(), row2.getStructuralHash());
+        }
+    }
+
+    @Test
+    void rowAsMap() {
+        TableSnapshot.Row row = TableSnapshot.builder("t", COLUMNS).addRow("t_1", new Object[]{1, null}).build()
+                .get("t_1");
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", 1);
+        map.put("name", null);
+
+        assertEquals(map, row);
+        assertEquals(row, map);
+        assertEquals(map.hashCode(), row.hashCode());
+        assertTrue(row.containsKey("name"));
+        assertFalse(row.containsKey("other"));
+        assertNull(row.get("other"));
+    }
+
+    @Test
+    void replaceRowWithSameKey() {
+        TableSnapshot table = TableSnapshot.builder("t", COLUMNS)
+                .addRow("t_1", new Object[]{1, "a"})
+                .addRow("t_2", new Object[]{2, "b"})
+                .addRow("t_1", new Object[]{1, "c"})
+                .build();
+        TableSnapshot expected = TableSnapshot.builder("t", COLUMNS)
+                .addRow("t_2", new Object[]{2, "b"})
+                .addRow("t_1", new Object[]{1, "c"})
+                .build();
+
+        assertEquals(2, table.size());
+        assertEquals("c", table.get("t_1").get("name"));
+        assertEquals(List.of("t_2", "t_1"), keys(new SqlSnapshot(List.of(table))));
+        assertEquals(expected.getStructuralHash(), table.getStructuralHash());
+    }
+
+    @Test
+    void growBeyondInitialCapacity() {
+        TableSnapshot.Builder builder = TableSnapshot.builder("t", COLUMNS);
+        for (int i = 0; i < 100; i++) {
+            builder.addRow("t_" + i, new Object[]{i, "name" + i});
+        }
+        TableSnapshot table = builder.build();
+
+        assertEquals(100, table.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Map.of("id", i, "name", "name" + i), table.get("t_" + i));
+        }
+    }
+
+    @Test
+    void structuralHashDoesNotDependOnRowOrder() {
+        TableSnapshot table1 = TableSnapshot.builder("t", COLUMNS)
+                .addRow("t_1", new Object[]{1, "a"})
+                .addRow("t_2", new Object[]{2, "b"})
+                .build();
+        TableSnapshot table2 = TableSnapshot.builder("t", COLUMNS)
+                .addRow("t_2", new Object[]{2, "b"})
+                .addRow("t_1", new Object[]{1, "a"})
+                .build();
+        TableSnapshot other = TableSnapshot.builder("other", COLUMNS)
+                .addRow("t_2", new Object[]{2, "b"})
+                .addRow("t_1", new Object[]{1, "a"})
+                .build();
+
+        assertEquals(table1.getStructuralHash(), table2.getStructuralHash());
+        assertNotEquals(table1.getStructuralHash(), other.getStructuralHash());
+    }
+
+    @Test
+    void mapView() {
+        SqlSnapshot snapshot = snapshot(table("t1", "a"), table("t2", "b"));
+
+        assertEquals(4, snapshot.size());
+        assertEquals(List.of("t1_1", "t1_2", "t2_1", "t2_2"), keys(snapshot));
+        assertTrue(snapshot.containsKey("t2_1"));
+        assertFalse(snapshot.containsKey("t3_1"));
+        assertEquals(Map.of("id", 1, "name", "b1"), snapshot.get("t2_1"));
+        assertNull(snapshot.get("t3_1"));
+        assertEquals(new HashMap<>(snapshot), snapshot);
+    }
+
+    @Test
+    void segments() {
+        TableSnapshot t1 = table("t1", "a");
+        TableSnapshot t2 = table("t2", "b");
+        SqlSnapshot snapshot = snapshot(t1, t2);
+
+        assertEquals(Map.of("t1", t1.getStructuralHash(), "t2", t2.getStructuralHash()),
+                snapshot.getSegmentHashes());
+        assertEquals(t1.getStructuralHash() + t2.getStructuralHash(), snapshot.getStructuralHash());
+        assertEquals(List.of("t2_1", "t2_2"), keys(snapshot.getSegments(List.of("t2", "t3"))));
+        assertEquals(List.of(), keys(snapshot.getSegments(List.of())));
+    }
+
+    @Test
+    void shareUnchangedSegments() {
+        TableSnapshot t1 = table("t1", "a");
+        TableSnapshot t2 = table("t2", "b");
+        SqlSnapshot previous = snapshot(t1, t2);
+        TableSnapshot t1Copy = table("t1", "a");
+        TableSnapshot t2Changed = table("t2", "c");
+
+        SqlSnapshot shared = snapshot(t1Copy, t2Changed).shareSegments(previous);
+
+        assertSame(t1, shared.getTables().get(0));
+        assertSame(t2Changed, shared.getTables().get(1));
+        assertSame(previous, snapshot(table("t1", "a"), table("t2", "b")).shareSegments(previous));
+    }
+
+    @Test
+    void shareSegmentsOfDifferentTables() {
+        TableSnapshot t1 = table("t1", "a");
+        SqlSnapshot previous = snapshot(t1, table("t2", "b"));
+        TableSnapshot t3 = table("t3", "c");
+
+        SqlSnapshot shared = snapshot(table("t1", "a"), t3).shareSegments(previous);
+
+        assertEquals(List.of(t1, t3), shared.getTables());
+        assertSame(t1, shared.getTables().get(0));
+        SqlSnapshot fewer = snapshot(table("t1", "a"));
+        assertNotSame(previous, fewer.shareSegments(previous));
+        assertEquals(List.of("t1_1", "t1_2"), keys(fewer.shareSegments(previous)));
+    }
+
+    @Test
+    void tableEquals() {
+        TableSnapshot table = table("t", "a");
+
+        assertEquals(table, table("t", "a"));
+        assertEquals(table.hashCode(), table("t", "a").hashCode());
+        assertNotEquals(table, table("t", "b"));
+        assertNotEquals(table, table("other", "a"));
+        assertNotEquals(table, TableSnapshot.builder("t", COLUMNS).addRow("t_1", new Object[]{1, "a1"}).build());
+    }
+
+    @Test
+    void equalHashesOfDifferentValues() {
+        TableSnapshot t1 = TableSnapshot.builder("t", COLUMNS)
+                .addRow("t_1", new Object[]{1, new Colliding("a")}).build();
+        TableSnapshot t2 = TableSnapshot.builder("t", COLUMNS)
+                .addRow("t_1", new Object[]{1, new Colliding("b")}).build();
+        SqlSnapshot previous = snapshot(t1);
+
+        assertEquals(t1.getStructuralHash(), t2.getStructuralHash());
+        assertNotEquals(t1, t2);
+        assertNotEquals(t1.get("t_1"), t2.get("t_1"));
+        assertNotEquals(previous, snapshot(t2));
+        assertSame(t2, snapshot(t2).shareSegments(previous).getTables().get(0));
+    }
+
+    private static TableSnapshot table(String name, String prefix) {
+        return TableSnapshot.builder(name, COLUMNS)
+                .addRow(name + "_1", new Object[]{1, prefix + 1})
+                .addRow(name + "_2", new Object[]{2, prefix + 2})
+                .build();
+    }
+
+    private static SqlSnapshot snapshot(TableSnapshot... tables) {
+        return new SqlSnapshot(List.of(tables));
+    }
+
+    private static List<String> keys(Map<String, Object> map) {
+        return new ArrayList<>(map.keySet());
+    }
+
+    private record Colliding(String value) {
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.dimkich.integration.testing.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EqualsRegistryTest {
+    static {
+        EqualsRegistry.addEqualsForType(Registered.class, (Registered r1, Registered r2) -> r1.id == r2.id);
+    }
+
+    static Object[][] isEqualsData() {
+        return new Object[][]{
+                {null, null, true},
+                {new Plain(1, "a"), null, false},
+                {new Plain(1, "a"), new Plain(1, "a"), true},
+                {new Plain(1, "a"), new Plain(1, "b"), false},
+                {new Plain(1, null), new Plain(1, null), true},
+                {new AlwaysEqual(1), new AlwaysEqual(2), true},
+                {new Holder(new AlwaysEqual(1)), new Holder(new AlwaysEqual(1)), true},
+                {new Holder(new AlwaysEqual(1)), new Holder(new AlwaysEqual(2)), false},
+                {new Holder(new Registered(1, "a")), new Holder(new Registered(1, "b")), true},
+                {new Holder(new Registered(1, "a")), new Holder(new Registered(2, "a")), false},
+                {new Holder(List.of(new Plain(1, "a"))), new Holder(List.of(new Plain(1, "a"))), true},
+                {new Holder(List.of(new Plain(1, "a"))), new Holder(List.of(new Plain(1, "b"))), false},
+                {new Holder(Map.of("k", 1)), new Holder(Map.of("k", 1)), true},
+                {new Holder(Map.of("k", 1)), new Holder(Map.of("k", 2)), false},
+                {new AtomicMarkableReference<>(new Plain(1, "a"), false),
+                        new AtomicMarkableReference<>(new Plain(1, "a"), false), true},
+                {new AtomicMarkableReference<>(new Plain(1, "a"), false),
+                        new AtomicMarkableReference<>(new Plain(1, "b"), false), false},
+        };
+    }
+
+    @ParameterizedTest
+    @MethodSource("isEqualsData")
+    void isEquals(Object o1, Object o2, boolean equal) {
+        assertEquals(equal, EqualsRegistry.isEquals(o1, o2));
+    }
+
+    @Test
+    void hasEqualsForType() {
+        assertTrue(EqualsRegistry.hasEqualsForType(Registered.class));
+        assertTrue(EqualsRegistry.hasEqualsForType(RegisteredChild.class));
+        assertTrue(EqualsRegistry.hasEqualsForType(AtomicMarkableReference.class));
+        assertFalse(EqualsRegistry.hasEqualsForType(Plain.class));
+    }
+
+    @Test
+    void registeredForSubtype() {
+        assertTrue(EqualsRegistry.isEquals(new RegisteredChild(1, "a"), new RegisteredChild(1, "b")));
+    }
+
+    @Test
+    void deepGraph() {
+        Node node1 = new Node(null);
+        Node node2 = new Node(null);
+        for (int i = 0; i < 100; i++) {
+            node1 = new Node(node1);
+            node2 = new Node(node2);
+        }
+
+        assertTrue(EqualsRegistry.isEquals(node1, node2));
+        assertTrue(EqualsRegistry.isEquals(node1, node2));
+    }
+
+    static class Plain {
+        private final int id;
+        private final String name;
+
+        Plain(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    static class AlwaysEqual {
+        private final int id;
+
+        AlwaysEqual(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof AlwaysEqual;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
+    static class Registered {
+        private final int id;
+        private final String name;
+
+        Registered(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    static class RegisteredChild extends Registered {
+        RegisteredChild(int id, String name) {
+            super(id, name);
+        }
+    }
+
+    static class Holder {
+        private final Object value;
+
+        Holder(Object value) {
+            this.value = value;
+        }
+    }
+
+    static class Node {
+        private final Node next;
+
+        Node(Node next) {
+            this.next = next;
+        }
+    }
+}
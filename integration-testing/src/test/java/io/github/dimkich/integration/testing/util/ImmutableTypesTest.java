@@ -0,0 +1,122 @@
+package io.github.dimkich.integration.testing.util;
+
+import io.github.dimkich.integration.testing.TestSetupModule;
+import io.github.sugarcubes.cloner.CopyAction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImmutableTypesTest {
+    private final ImmutableTypes immutableTypes = new ImmutableTypes(Set.of());
+
+    static Object[][] isImmutableData() {
+        return new Object[][]{
+                {int.class, true},
+                {String.class, true},
+                {TimeUnit.class, true},
+                {LocalDate.class, true},
+                {ImmutableRecord.class, true},
+                {ImmutableClass.class, true},
+                {NonFinalField.class, false},
+                {ListField.class, false},
+                {ArrayField.class, false},
+                {NonFinalClass.class, false},
+                {MutableParentChild.class, false},
+                {int[].class, false},
+                {List.class, false},
+                {Cycle.class, true},
+                {CycleA.class, true},
+                {MutableCycleA.class, false},
+        };
+    }
+
+    @ParameterizedTest
+    @MethodSource("isImmutableData")
+    void isImmutable(Class<?> type, boolean immutable) {
+        assertEquals(immutable, immutableTypes.isImmutable(type));
+    }
+
+    @Test
+    void configuredTypes() throws Exception {
+        TestSetupModule module = new TestSetupModule()
+                .clonerTypeAction(ImmutableRecord.class, CopyAction.ORIGINAL)
+                .clonerFieldAction(ImmutableClass.class, "name", CopyAction.ORIGINAL);
+        Set<Class<?>> configuredTypes = new HashSet<>(module.getTypeActions().keySet());
+        for (Field field : module.getFieldActions().keySet()) {
+            configuredTypes.add(field.getDeclaringClass());
+        }
+        ImmutableTypes types = new ImmutableTypes(configuredTypes);
+
+        assertFalse(types.isImmutable(ImmutableRecord.class));
+        assertFalse(types.isImmutable(ImmutableClass.class));
+        assertFalse(types.isImmutable(RecordHolder.class));
+        assertTrue(types.isImmutable(String.class));
+    }
+
+    record ImmutableRecord(int id, String name, LocalDate date) {
+    }
+
+    record RecordHolder(ImmutableRecord value) {
+    }
+
+    static final class ImmutableClass {
+        private final long id = 0;
+        private final String name = null;
+        private final ImmutableRecord record = null;
+    }
+
+    static final class NonFinalField {
+        private String name;
+    }
+
+    static final class ListField {
+        private final List<String> names = List.of();
+    }
+
+    static final class ArrayField {
+        private final int[] values = {};
+    }
+
+    static class NonFinalClass {
+        private final String name = null;
+    }
+
+    static class MutableParent {
+        private int counter;
+    }
+
+    static final class MutableParentChild extends MutableParent {
+        private final String name = null;
+    }
+
+    static final class Cycle {
+        private final Cycle next = null;
+        private final String name = null;
+    }
+
+    static final class CycleA {
+        private final CycleB b = null;
+    }
+
+    static final class CycleB {
+        private final CycleA a = null;
+    }
+
+    static final class MutableCycleA {
+        private final MutableCycleB b = null;
+    }
+
+    static final class MutableCycleB {
+        private final MutableCycleA a = null;
+        private final StringBuilder builder = null;
+    }
+}